@@ -0,0 +1,62 @@
+package v1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+/**
+ * The original calculator, which walks every overflow-free build of its fixed 20 listings per slot and keeps only
+ * the cheapest.
+ * <p>
+ * It lives in the default package, which JMH cannot generate code for, so it is reached through reflection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class V1Benchmark {
+
+    private Method cheapest;
+    private List<List<Object>> itemSets;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws ReflectiveOperationException {
+        Class<?> calculator = Class.forName("Calculator");
+        Method getItemSets = calculator.getDeclaredMethod("getItemSets");
+        getItemSets.setAccessible(true);
+        cheapest = calculator.getDeclaredMethod("cheapest", List.class, int.class, LongPredicate.class);
+        cheapest.setAccessible(true);
+
+        Method setPrice = Class.forName("Item").getMethod("setPrice", int.class);
+        setPrice.setAccessible(true);
+        Random random = new Random(42);
+        itemSets = (List<List<Object>>) getItemSets.invoke(null);
+        for (List<Object> itemSet : itemSets) {
+            for (Object item : itemSet) {
+                setPrice.invoke(item, 500 * (1 + random.nextInt(200)));
+            }
+        }
+    }
+
+    @Benchmark
+    public long[] cheapest() throws ReflectiveOperationException {
+        LongPredicate any = build -> true;
+        return (long[]) cheapest.invoke(null, itemSets, 1, any);
+    }
+}
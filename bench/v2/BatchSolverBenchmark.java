@@ -0,0 +1,72 @@
+package v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profiles per second against one snapshot: {@link BatchSolver} next to running {@link MeetInTheMiddleSearch} once
+ * per profile. Every class engraving with both book modes, once with a stone of its own and once buying one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BatchSolverBenchmark {
+
+    private static final int PROFILES = 20;
+
+    @Param({"50", "200"})
+    public int listings;
+
+    private List<List<Item>> itemSets;
+    private PriceSnapshot snapshot;
+    private List<SolveProfile> profiles;
+
+    @Setup
+    public void setUp() {
+        itemSets = SnapshotGenerator.itemSets(listings, EngravingType.values().length, 12, 42);
+        snapshot = SnapshotGenerator.books(itemSets);
+        profiles = new ArrayList<>();
+        Item stone = itemSets.get(ItemType.STONE.ordinal()).get(0);
+        for (EngravingType classEngraving : EngravingType.values()) {
+            for (int book2Points : new int[]{12, 9}) {
+                profiles.add(new SolveProfile(classEngraving, 12, book2Points, stone));
+                profiles.add(new SolveProfile(classEngraving, 12, book2Points, null));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROFILES)
+    public List<List<List<Item>>> batch() {
+        return BatchSolver.solve(itemSets, snapshot, profiles, 5);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROFILES)
+    public List<List<List<Item>>> oneByOne() {
+        List<List<List<Item>>> results = new ArrayList<>();
+        for (SolveProfile profile : profiles) {
+            List<List<Item>> profileItemSets = Calculator.withBooks(itemSets, profile, snapshot);
+            profileItemSets.set(ItemType.STONE.ordinal(), profile.stones());
+            results.add(MeetInTheMiddleSearch.search(ListingFilter.reduce(profileItemSets, 5), profile.targets(), 5));
+        }
+        return results;
+    }
+}
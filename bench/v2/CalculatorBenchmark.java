@@ -0,0 +1,80 @@
+package v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-build helpers of {@link Calculator} next to their packed replacements, on the cheapest builds of a
+ * synthetic snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+
+    @Param({"12/12", "12/9"})
+    public String books;
+
+    private List<List<Item>> itemSets;
+    private List<List<Item>> permutations;
+    private List<Item> combination;
+    private SolveProfile profile;
+    private long[] targets;
+    private long state;
+
+    @Setup
+    public void setUp() {
+        int book2Points = Integer.parseInt(books.substring(books.indexOf('/') + 1));
+        profile = new SolveProfile(Calculator.CLASS_ENGRAVING, 12, book2Points, null);
+        itemSets = SnapshotGenerator.itemSets(50, EngravingType.values().length, book2Points, 42);
+        targets = profile.targets();
+        permutations = BranchAndBoundSearch.search(itemSets, targets, 5);
+        combination = permutations.get(0);
+        for (Item item : combination) {
+            state += PackedEngravings.delta(item);
+        }
+    }
+
+    @Benchmark
+    public boolean isValidCombination() {
+        return Calculator.isValidCombination(combination, profile);
+    }
+
+    @Benchmark
+    public boolean packedMatches() {
+        return PackedEngravings.matches(state, targets);
+    }
+
+    @Benchmark
+    public Map<EngravingType, Integer> mapEngravings() {
+        return Calculator.mapEngravings(combination);
+    }
+
+    @Benchmark
+    public List<List<Item>> addBooks() {
+        // addBooks appends to the lists it gets, so every call needs fresh ones
+        List<List<Item>> copies = new ArrayList<>(permutations.size());
+        for (List<Item> permutation : permutations) {
+            copies.add(new ArrayList<>(permutation));
+        }
+        Calculator.addBooks(copies, itemSets, targets);
+        return copies;
+    }
+}
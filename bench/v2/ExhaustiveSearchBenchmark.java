@@ -0,0 +1,66 @@
+package v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The solvers without a price bound: LEGACY visits every overflow-free build, PACKED every one that can still reach
+ * a target. LEGACY takes minutes per run at 50 listings, so the default only covers 20; pass
+ * {@code -p listings=20,50} to include more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ExhaustiveSearchBenchmark {
+
+    @Param({"LEGACY", "PACKED"})
+    public String mode;
+
+    @Param({"20"})
+    public int listings;
+
+    @Param({"12/12", "12/9"})
+    public String books;
+
+    private Solver solver;
+    private List<List<Item>> itemSets;
+    private long[] targets;
+    private int globalBook2Points;
+
+    @Setup
+    public void setUp() {
+        int book2Points = Integer.parseInt(books.substring(books.indexOf('/') + 1));
+        // LEGACY checks builds against the global books, not the targets it is given
+        globalBook2Points = Calculator.BOOK_2_POINTS;
+        Calculator.BOOK_2_POINTS = book2Points;
+        solver = SearchMode.valueOf(mode).solver;
+        itemSets = SnapshotGenerator.itemSets(listings, EngravingType.values().length, book2Points, 42);
+        targets = PackedEngravings.targets(12, book2Points);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Calculator.BOOK_2_POINTS = globalBook2Points;
+    }
+
+    @Benchmark
+    public List<List<Item>> solve() {
+        return solver.solve(itemSets, targets, 5);
+    }
+}
@@ -0,0 +1,104 @@
+package v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How {@link GenericSolver} scales with the engraving universe. The listings are drawn from every pair of the
+ * {@code engravings}, so the number of distinct patterns per slot grows quadratically with it, while the targets
+ * stay the five levels of a 12/12 build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class GenericSolverBenchmark {
+
+    private static final int[][] POINTS = {{5, 3}, {4, 3}, {3, 3}, {3, 4}, {3, 5}};
+
+    @Param({"5", "6", "7", "8", "9", "10"})
+    public int engravings;
+
+    @Param({"50", "200"})
+    public int listings;
+
+    @Param({"5"})
+    public int k;
+
+    private GenericSolver solver;
+    private long[][] deltas;
+    private long[][] prices;
+
+    @Setup
+    public void setUp() {
+        long target = PackedEngravings.targets(12, 12)[0];
+        int[] levels = new int[EngravingType.values().length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = PackedEngravings.points(target, i);
+        }
+        levels = Arrays.stream(levels).filter(level -> level > 0).toArray();
+        solver = new GenericSolver(engravings, levels);
+
+        Random random = new Random(42);
+        deltas = new long[PackedItemSets.SLOTS][];
+        prices = new long[PackedItemSets.SLOTS][];
+        for (int slot = 0; slot < PackedItemSets.SLOTS - 1; slot++) {
+            List<Long> patterns = new ArrayList<>();
+            for (int i = 0; i < engravings - 1; i++) {
+                for (int j = i + 1; j < engravings; j++) {
+                    for (int[] points : POINTS) {
+                        patterns.add(GenericSolver.delta(i, points[0], j, points[1]));
+                    }
+                }
+            }
+            Collections.shuffle(patterns, random);
+            deltas[slot] = new long[listings];
+            prices[slot] = new long[listings];
+            for (int listing = 0; listing < listings; listing++) {
+                deltas[slot][listing] = patterns.get(listing % patterns.size());
+                prices[slot][listing] = 500L * (1 + random.nextInt(200));
+            }
+            sortByPrice(deltas[slot], prices[slot]);
+        }
+        deltas[PackedItemSets.SLOTS - 1] = new long[]{GenericSolver.delta(1, 7, 2, 5)};
+        prices[PackedItemSets.SLOTS - 1] = new long[]{0};
+    }
+
+    @Benchmark
+    public TopBuilds solve() {
+        return solver.solve(deltas, prices, new boolean[PackedItemSets.SLOTS], k);
+    }
+
+    private static void sortByPrice(long[] deltas, long[] prices) {
+        long[] keyed = new long[prices.length];
+        for (int i = 0; i < prices.length; i++) {
+            keyed[i] = prices[i] << 32 | i;
+        }
+        Arrays.sort(keyed);
+        long[] sortedDeltas = new long[deltas.length];
+        for (int i = 0; i < keyed.length; i++) {
+            int from = (int) keyed[i];
+            sortedDeltas[i] = deltas[from];
+            prices[i] = keyed[i] >>> 32;
+        }
+        System.arraycopy(sortedDeltas, 0, deltas, 0, deltas.length);
+    }
+}
@@ -0,0 +1,47 @@
+package v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ParetoFront} over the same synthetic snapshots as {@link SolverBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ParetoFrontBenchmark {
+
+    @Param({"20", "50", "200", "1000"})
+    public int listings;
+
+    @Param({"12/12", "12/9"})
+    public String books;
+
+    private List<List<Item>> itemSets;
+
+    @Setup
+    public void setUp() {
+        int book2Points = Integer.parseInt(books.substring(books.indexOf('/') + 1));
+        itemSets = SnapshotGenerator.itemSets(listings, EngravingType.values().length, book2Points, 42);
+    }
+
+    @Benchmark
+    public List<ParetoFront.Point> front() {
+        return ParetoFront.of(itemSets);
+    }
+}
@@ -0,0 +1,57 @@
+package v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RosterSolver} for a roster of characters with different class engravings, every other one with a stone of
+ * its own and every third one on 12/9 books, sharing one snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class RosterBenchmark {
+
+    @Param({"6"})
+    public int characters;
+
+    @Param({"50", "200"})
+    public int listings;
+
+    private List<List<Item>> itemSets;
+    private PriceSnapshot snapshot;
+    private List<SolveProfile> profiles;
+
+    @Setup
+    public void setUp() {
+        itemSets = SnapshotGenerator.itemSets(listings, EngravingType.values().length, 12, 42);
+        snapshot = SnapshotGenerator.books(itemSets);
+        profiles = new ArrayList<>();
+        Item stone = itemSets.get(ItemType.STONE.ordinal()).get(0);
+        for (int c = 0; c < characters; c++) {
+            EngravingType classEngraving = EngravingType.values()[c % EngravingType.values().length];
+            profiles.add(new SolveProfile(classEngraving, 12, c % 3 == 2 ? 9 : 12, c % 2 == 0 ? stone : null));
+        }
+    }
+
+    @Benchmark
+    public RosterSolver.Roster roster() {
+        return RosterSolver.solve(itemSets, snapshot, profiles);
+    }
+}
@@ -0,0 +1,89 @@
+package v2;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic price snapshots shaped like {@link Calculator#getItemSets()} after {@link Calculator#getPrices(List)},
+ * so the benchmarks do not depend on a price file.
+ */
+final class SnapshotGenerator {
+
+    private static final int[][] POINTS = {{5, 3}, {4, 3}, {3, 3}, {3, 4}, {3, 5}};
+
+    private SnapshotGenerator() {
+    }
+
+    /**
+     * @param listingsPerSlot listings in each of NECKLACE through RING_2, cycling through the engraving patterns
+     *                        so that more listings than patterns means several listings per pattern
+     * @param engravings      how many of the {@link EngravingType}s the listings draw from
+     * @param book2Points     12 for the 12/12 book mode, 9 for 12/9
+     */
+    static List<List<Item>> itemSets(int listingsPerSlot, int engravings, int book2Points, long seed) {
+        if (engravings < 2 || engravings > EngravingType.values().length) {
+            throw new IllegalArgumentException("Between 2 and " + EngravingType.values().length + " engravings are supported, got " + engravings);
+        }
+        Random random = new Random(seed);
+        EngravingType[] types = EngravingType.values();
+        List<List<Item>> itemSets = new ArrayList<>();
+
+        for (ItemType itemType : new ItemType[]{ItemType.NECKLACE, ItemType.EARRING_1, ItemType.EARRING_2, ItemType.RING_1, ItemType.RING_2}) {
+            List<int[]> patterns = new ArrayList<>();
+            for (int i = 0; i < engravings - 1; i++) {
+                for (int j = i + 1; j < engravings; j++) {
+                    for (int[] points : POINTS) {
+                        patterns.add(new int[]{i, points[0], j, points[1]});
+                    }
+                }
+            }
+            Collections.shuffle(patterns, random);
+
+            List<Item> itemList = new ArrayList<>();
+            for (int listing = 0; listing < listingsPerSlot; listing++) {
+                int[] pattern = patterns.get(listing % patterns.size());
+                itemList.add(new Item(itemType, new Engraving(types[pattern[0]], pattern[1]), new Engraving(types[pattern[2]], pattern[3]), price(random)));
+            }
+            itemSets.add(itemList);
+        }
+
+        List<Item> stones = new ArrayList<>();
+        stones.add(new Item(ItemType.STONE, new Engraving(types[1], 7), new Engraving(types[2], 5), 0));
+        itemSets.add(stones);
+
+        List<Item> books1 = new ArrayList<>();
+        List<Item> books2 = new ArrayList<>();
+        for (EngravingType type : types) {
+            books1.add(new Item(ItemType.BOOKS_1, new Engraving(type, 12), null, 10_000 + random.nextInt(400) * 1_000L));
+            books2.add(new Item(ItemType.BOOKS_2, new Engraving(type, book2Points), null, 10_000 + random.nextInt(400) * 1_000L));
+        }
+        itemSets.add(books1);
+        itemSets.add(books2);
+        return itemSets;
+    }
+
+    /**
+     * The books of generated item sets as a snapshot, with a 9 point BOOKS_2 at half the price of every other one
+     * for the profiles that use them.
+     */
+    static PriceSnapshot books(List<List<Item>> itemSets) {
+        StringBuilder books = new StringBuilder();
+        for (ItemType booksType : new ItemType[]{ItemType.BOOKS_1, ItemType.BOOKS_2}) {
+            for (Item book : itemSets.get(booksType.ordinal())) {
+                books.append(book).append(System.lineSeparator());
+                if (booksType == ItemType.BOOKS_2 && book.engraving1.points != 9) {
+                    books.append(new Item(booksType, new Engraving(book.engraving1.engravingType, 9), null, book.price / 2)).append(System.lineSeparator());
+                }
+            }
+        }
+        return PriceSnapshot.parse(ByteBuffer.wrap(books.toString().getBytes(StandardCharsets.US_ASCII)), "books");
+    }
+
+    private static long price(Random random) {
+        return random.nextInt(10) == 0 ? Calculator.UNAVAILABLE : 500L * (1 + random.nextInt(200));
+    }
+}
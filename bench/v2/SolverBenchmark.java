@@ -0,0 +1,59 @@
+package v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pruning solvers over synthetic snapshots. The exhaustive ones are in {@link ExhaustiveSearchBenchmark}, they
+ * cannot finish at the larger listing counts. The engraving count is fixed by {@link EngravingType}, see
+ * {@link GenericSolverBenchmark} for that axis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"BRANCH_AND_BOUND", "PARALLEL", "MEET_IN_THE_MIDDLE", "DYNAMIC_PROGRAMMING"})
+    public String mode;
+
+    @Param({"20", "50", "200", "1000"})
+    public int listings;
+
+    @Param({"12/12", "12/9"})
+    public String books;
+
+    @Param({"5"})
+    public int k;
+
+    private Solver solver;
+    private List<List<Item>> itemSets;
+    private long[] targets;
+
+    @Setup
+    public void setUp() {
+        int book2Points = Integer.parseInt(books.substring(books.indexOf('/') + 1));
+        solver = SearchMode.valueOf(mode).solver;
+        itemSets = SnapshotGenerator.itemSets(listings, EngravingType.values().length, book2Points, 42);
+        targets = PackedEngravings.targets(12, book2Points);
+    }
+
+    @Benchmark
+    public List<List<Item>> solve() {
+        return solver.solve(itemSets, targets, k);
+    }
+}
@@ -0,0 +1,53 @@
+package v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PACKED with its RING_2 × STONE scan on the Vector API against the scalar loop. The fork is started with the
+ * incubator module, so {@code vectorize} alone decides which one runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorScanBenchmark {
+
+    @Param({"true", "false"})
+    public boolean vectorize;
+
+    @Param({"10", "20", "30"})
+    public int listings;
+
+    private List<List<Item>> itemSets;
+    private long[] targets;
+
+    @Setup
+    public void setUp() {
+        Calculator.VECTORIZE = vectorize;
+        if (vectorize && !RingStonePairs.isVectorized()) {
+            throw new IllegalStateException("jdk.incubator.vector is not available");
+        }
+        itemSets = SnapshotGenerator.itemSets(listings, 5, 12, 42);
+        targets = PackedEngravings.targets(12, 12);
+    }
+
+    @Benchmark
+    public List<List<Item>> solve() {
+        return Calculator.buildPackedPermutations(itemSets, targets, 5);
+    }
+}
@@ -1,17 +1,26 @@
-import com.google.common.collect.Lists;
 import lombok.Data;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.FileWriter;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -37,6 +46,17 @@ enum EngravingType {
 @Slf4j
 public class Calculator {
 
+    // write every valid build, cheapest first, to ALL_BUILDS_FILE as well?
+    public static boolean WRITE_ALL_BUILDS = false;
+    public static String ALL_BUILDS_FILE = "allBuilds.txt";
+
+    // a build is its six slot indices, BUILD_BITS each, NECKLACE highest so builds sort in the order they are found
+    private static final int SLOTS = 6;
+    private static final int BUILD_BITS = 10;
+    private static final long BUILD_MASK = (1L << BUILD_BITS) - 1;
+    // builds sorted in memory at a time while writing ALL_BUILDS_FILE
+    private static final int RUN_BUILDS = 1 << 20;
+
     @SneakyThrows
     public static Stream<String> fileStream(String fileName) {
         return Files.lines(Paths.get(fileName));
@@ -49,34 +69,27 @@ public class Calculator {
 
         getPrices(itemSets);
 
-        List<List<Item>> filteredPermutations = getFilteredPermutations(itemSets);
+        if (WRITE_ALL_BUILDS) {
+            log.info("{} Writing all builds", LocalDateTime.now());
+            long total = writeAllBuilds(itemSets, Paths.get(ALL_BUILDS_FILE));
+            log.info("{} Done, total={} ", LocalDateTime.now(), total);
+        }
 
-        filteredPermutations.sort((itemList1, itemList2) -> Integer
-                .compare(itemList1.stream().mapToInt(item -> item.price).sum(), itemList2.stream().mapToInt(item -> item.price).sum()));
+        log.info("{} Generating permutations", LocalDateTime.now());
+        long[] cheapest = cheapest(itemSets, 1, build -> existingStone(items(itemSets, build)));
 
         log.info("{} Done", LocalDateTime.now());
+        if (cheapest.length == 0) {
+            log.info("{} No build with your stone", LocalDateTime.now());
+            return;
+        }
 
-        List<List<Item>> collect = filteredPermutations.stream()
-                .filter(Calculator::existingStone)
-                .collect(Collectors.toList());
-        List<Item> itemList = collect.get(0);
+        List<Item> itemList = items(itemSets, cheapest[0]);
+        addBooks(List.of(itemList), itemSets);
         int price = itemList.stream().mapToInt(item -> item.price).sum();
         log.info("{} Cheapest - {} - {}", LocalDateTime.now(), price, itemList);
     }
 
-    private static List<List<Item>> getFilteredPermutations(List<List<Item>> itemSets) {
-        log.info("{} Generating permutations", LocalDateTime.now());
-        List<List<Item>> permutations = buildPermutations(itemSets);
-
-        log.info("{} Filtering permutations", LocalDateTime.now());
-        List<List<Item>> filteredPermutations = permutations.stream().filter(Calculator::isValidCombination).collect(Collectors.toList());
-
-        log.info("{} Adding books", LocalDateTime.now());
-        addBooks(filteredPermutations, itemSets);
-        log.info("{} Done, total={} ", LocalDateTime.now(), filteredPermutations.size());
-        return filteredPermutations;
-    }
-
     @SneakyThrows
     private static void outputItems(List<List<Item>> itemSets) {
         BufferedWriter writer = new BufferedWriter(new FileWriter("priceInput.txt"));
@@ -152,71 +165,214 @@ public class Calculator {
         writer.write(item.toString() + System.lineSeparator());
     }
 
-    static List<List<Item>> buildPermutations(List<List<Item>> itemSets) {
-        List<List<Item>> permutations = new ArrayList<>();
-
-        for (int neck = 0; neck < itemSets.get(0).size(); neck++) {
-            Map<EngravingType, Integer> valueMap = new HashMap<>();
-            int neckEngraving1 = valueMap.getOrDefault(itemSets.get(0).get(neck).engraving1.engravingType, 0) + itemSets.get(0).get(neck).engraving1.points;
-            int neckEngraving2 = valueMap.getOrDefault(itemSets.get(0).get(neck).engraving2.engravingType, 0) + itemSets.get(0).get(neck).engraving2.points;
-            valueMap.put(itemSets.get(0).get(neck).engraving1.engravingType, neckEngraving1);
-            valueMap.put(itemSets.get(0).get(neck).engraving2.engravingType, neckEngraving2);
-
-            for (int ear1 = 0; ear1 < itemSets.get(1).size(); ear1++) {
-                int ear1Engraving1 = valueMap.getOrDefault(itemSets.get(1).get(ear1).engraving1.engravingType, 0) + itemSets.get(1).get(ear1).engraving1.points;
-                int ear1Engraving2 = valueMap.getOrDefault(itemSets.get(1).get(ear1).engraving2.engravingType, 0) + itemSets.get(1).get(ear1).engraving2.points;
-                valueMap.put(itemSets.get(1).get(ear1).engraving1.engravingType, ear1Engraving1);
-                valueMap.put(itemSets.get(1).get(ear1).engraving2.engravingType, ear1Engraving2);
-
-                for (int ear2 = 0; ear2 < itemSets.get(2).size(); ear2++) {
-                    int ear2Engraving1 = valueMap.getOrDefault(itemSets.get(2).get(ear2).engraving1.engravingType, 0) + itemSets.get(2).get(ear2).engraving1.points;
-                    int ear2Engraving2 = valueMap.getOrDefault(itemSets.get(2).get(ear2).engraving2.engravingType, 0) + itemSets.get(2).get(ear2).engraving2.points;
-                    valueMap.put(itemSets.get(2).get(ear2).engraving1.engravingType, ear2Engraving1);
-                    valueMap.put(itemSets.get(2).get(ear2).engraving2.engravingType, ear2Engraving2);
-
-                    for (int ring1 = 0; ring1 < itemSets.get(3).size(); ring1++) {
-                        int ring1Engraving1 = valueMap.getOrDefault(itemSets.get(3).get(ring1).engraving1.engravingType, 0) + itemSets.get(3).get(ring1).engraving1.points;
-                        int ring1Engraving2 = valueMap.getOrDefault(itemSets.get(3).get(ring1).engraving2.engravingType, 0) + itemSets.get(3).get(ring1).engraving2.points;
-
-                        if (ring1Engraving1 <= 15 && ring1Engraving2 <= 15) {
-                            valueMap.put(itemSets.get(3).get(ring1).engraving1.engravingType, ring1Engraving1);
-                            valueMap.put(itemSets.get(3).get(ring1).engraving2.engravingType, ring1Engraving2);
-
-                            for (int ring2 = 0; ring2 < itemSets.get(4).size(); ring2++) {
-                                int ring2Engraving1 = valueMap.getOrDefault(itemSets.get(4).get(ring2).engraving1.engravingType, 0) + itemSets.get(4).get(ring2).engraving1.points;
-                                int ring2Engraving2 = valueMap.getOrDefault(itemSets.get(4).get(ring2).engraving2.engravingType, 0) + itemSets.get(4).get(ring2).engraving2.points;
-
-                                if (ring2Engraving1 <= 15 && ring2Engraving2 <= 15) {
-                                    valueMap.put(itemSets.get(4).get(ring2).engraving1.engravingType, ring2Engraving1);
-                                    valueMap.put(itemSets.get(4).get(ring2).engraving2.engravingType, ring2Engraving2);
-
-                                    for (int stone = 0; stone < itemSets.get(5).size(); stone++) {
-                                        int stoneEngraving1 = valueMap.getOrDefault(itemSets.get(5).get(stone).engraving1.engravingType, 0) + itemSets.get(5).get(stone).engraving1.points;
-                                        int stoneEngraving2 = valueMap.getOrDefault(itemSets.get(5).get(stone).engraving2.engravingType, 0) + itemSets.get(5).get(stone).engraving2.points;
-
-                                        if (stoneEngraving1 <= 15 && stoneEngraving2 <= 15) {
-                                            permutations.add(Lists.newArrayList(itemSets.get(0).get(neck),
-                                                    itemSets.get(1).get(ear1), itemSets.get(2).get(ear2),
-                                                    itemSets.get(3).get(ring1), itemSets.get(4).get(ring2),
-                                                    itemSets.get(5).get(stone)));
-                                        }
-                                    }
-                                    valueMap.put(itemSets.get(4).get(ring2).engraving1.engravingType, valueMap.get(itemSets.get(4).get(ring2).engraving1.engravingType) - ring2Engraving1);
-                                    valueMap.put(itemSets.get(4).get(ring2).engraving2.engravingType, valueMap.get(itemSets.get(4).get(ring2).engraving2.engravingType) - ring2Engraving2);
-                                }
-                            }
-                            valueMap.put(itemSets.get(3).get(ring1).engraving1.engravingType, valueMap.get(itemSets.get(3).get(ring1).engraving1.engravingType) - ring1Engraving1);
-                            valueMap.put(itemSets.get(3).get(ring1).engraving2.engravingType, valueMap.get(itemSets.get(3).get(ring1).engraving2.engravingType) - ring1Engraving2);
-                        }
-                    }
-                    valueMap.put(itemSets.get(2).get(ear2).engraving1.engravingType, valueMap.get(itemSets.get(2).get(ear2).engraving1.engravingType) - ear2Engraving1);
-                    valueMap.put(itemSets.get(2).get(ear2).engraving2.engravingType, valueMap.get(itemSets.get(2).get(ear2).engraving2.engravingType) - ear2Engraving1);
+    interface BuildSink {
+        void accept(long build, int price);
+    }
+
+    /**
+     * Calls {@code sink} with every build that {@link #isValidCombination(List)} accepts, in the order of the slot
+     * indices, and its price with books. Nothing is kept per build, so memory does not grow with the listings.
+     * Since the second earring and ring come from the same rows as the first, only the builds whose index there is
+     * past the first one's are visited.
+     */
+    static void forEachValidBuild(List<List<Item>> itemSets, BuildSink sink) {
+        new BuildStream(itemSets, sink).visit(0, 0, 0);
+    }
+
+    /**
+     * The {@code limit} cheapest builds that {@code filter} accepts, cheapest first, builds of the same price in
+     * the order they are found.
+     */
+    static long[] cheapest(List<List<Item>> itemSets, int limit, LongPredicate filter) {
+        // most expensive, then latest found, on top
+        PriorityQueue<long[]> kept = new PriorityQueue<>(Comparator.<long[]>comparingLong(entry -> entry[0]).thenComparingLong(entry -> entry[1]).reversed());
+        forEachValidBuild(itemSets, (build, price) -> {
+            if (kept.size() == limit && price >= kept.peek()[0] || !filter.test(build)) {
+                return;
+            }
+            kept.add(new long[]{price, build});
+            if (kept.size() > limit) {
+                kept.poll();
+            }
+        });
+        long[] builds = new long[kept.size()];
+        for (int i = builds.length - 1; i >= 0; i--) {
+            builds[i] = kept.poll()[1];
+        }
+        return builds;
+    }
+
+    /**
+     * Writes every valid build with its books to {@code file}, cheapest first, one per line. The builds are sorted
+     * {@value #RUN_BUILDS} at a time into temporary run files, which are then merged, so memory stays flat however
+     * many builds there are.
+     *
+     * @return how many builds were written
+     */
+    @SneakyThrows
+    static long writeAllBuilds(List<List<Item>> itemSets, Path file) {
+        List<Path> runs = new ArrayList<>();
+        // price << 20 | position in the run, so equal prices keep the order they were found in
+        long[] keys = new long[RUN_BUILDS];
+        long[] builds = new long[RUN_BUILDS];
+        int[] size = {0};
+        long[] total = {0};
+        try {
+            forEachValidBuild(itemSets, (build, price) -> {
+                keys[size[0]] = (long) price << 20 | size[0];
+                builds[size[0]++] = build;
+                total[0]++;
+                if (size[0] == RUN_BUILDS) {
+                    runs.add(writeRun(keys, builds, size[0]));
+                    size[0] = 0;
+                }
+            });
+            if (size[0] > 0) {
+                runs.add(writeRun(keys, builds, size[0]));
+            }
+            mergeRuns(itemSets, runs, file);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+        return total[0];
+    }
+
+    @SneakyThrows
+    private static Path writeRun(long[] keys, long[] builds, int size) {
+        Arrays.sort(keys, 0, size);
+        Path run = Files.createTempFile("builds", ".run");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+            for (int i = 0; i < size; i++) {
+                out.writeInt((int) (keys[i] >>> 20));
+                out.writeLong(builds[(int) (keys[i] & (RUN_BUILDS - 1))]);
+            }
+        }
+        return run;
+    }
+
+    @SneakyThrows
+    private static void mergeRuns(List<List<Item>> itemSets, List<Path> runs, Path file) {
+        // price, run, build of the next record of each run; ties go to the earlier run, which was found first
+        PriorityQueue<long[]> heads = new PriorityQueue<>(Comparator.<long[]>comparingLong(head -> head[0]).thenComparingLong(head -> head[1]));
+        List<DataInputStream> inputs = new ArrayList<>();
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (Path run : runs) {
+                inputs.add(new DataInputStream(new BufferedInputStream(Files.newInputStream(run))));
+                next(inputs, inputs.size() - 1, heads);
+            }
+            while (!heads.isEmpty()) {
+                long[] head = heads.poll();
+                List<Item> itemList = items(itemSets, head[2]);
+                addBooks(List.of(itemList), itemSets);
+                writer.write(head[0] + " - " + itemList + System.lineSeparator());
+                next(inputs, (int) head[1], heads);
+            }
+        } finally {
+            for (DataInputStream input : inputs) {
+                input.close();
+            }
+        }
+    }
+
+    @SneakyThrows
+    private static void next(List<DataInputStream> inputs, int run, PriorityQueue<long[]> heads) {
+        try {
+            int price = inputs.get(run).readInt();
+            heads.add(new long[]{price, run, inputs.get(run).readLong()});
+        } catch (EOFException e) {
+            inputs.get(run).close();
+        }
+    }
+
+    static List<Item> items(List<List<Item>> itemSets, long build) {
+        List<Item> items = new ArrayList<>(SLOTS + 2);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int index = (int) ((build >>> ((SLOTS - 1 - slot) * BUILD_BITS)) & BUILD_MASK);
+            items.add(itemSets.get(slot).get(index));
+        }
+        return items;
+    }
+
+    /**
+     * The walk behind {@link #forEachValidBuild(List, BuildSink)}, over plain arrays of every listing's engraving
+     * ordinals, points and price, and one running total per engraving.
+     */
+    private static final class BuildStream {
+
+        private final BuildSink sink;
+        // per slot, per listing: engraving1 ordinal, points, engraving2 ordinal, points
+        private final int[][][] engravings = new int[SLOTS][][];
+        private final int[][] prices = new int[SLOTS][];
+        // per engraving ordinal: the price of its BOOKS_1 and BOOKS_2 listing
+        private final int[] books1;
+        private final int[] books2;
+        private final int[] totals = new int[EngravingType.values().length];
+
+        BuildStream(List<List<Item>> itemSets, BuildSink sink) {
+            this.sink = sink;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                List<Item> items = itemSets.get(slot);
+                if (items.size() > BUILD_MASK + 1) {
+                    throw new IllegalArgumentException("At most " + (BUILD_MASK + 1) + " listings per slot, got " + items.size());
+                }
+                engravings[slot] = new int[items.size()][];
+                prices[slot] = new int[items.size()];
+                for (int i = 0; i < items.size(); i++) {
+                    Item item = items.get(i);
+                    engravings[slot][i] = new int[]{item.engraving1.engravingType.ordinal(), item.engraving1.points,
+                            item.engraving2.engravingType.ordinal(), item.engraving2.points};
+                    prices[slot][i] = item.price;
+                }
+            }
+            books1 = bookPrices(itemSets.get(6));
+            books2 = bookPrices(itemSets.get(7));
+        }
+
+        void visit(int slot, long build, int price) {
+            if (slot == SLOTS) {
+                offer(build, price);
+                return;
+            }
+            // EARRING_2 and RING_2 share the rows of the slot before them, so a pair is only tried in one order,
+            // and never as the same listing twice
+            int first = slot == 2 || slot == 4 ? (int) (build & BUILD_MASK) + 1 : 0;
+            for (int i = first; i < prices[slot].length; i++) {
+                int[] listing = engravings[slot][i];
+                totals[listing[0]] += listing[1];
+                totals[listing[2]] += listing[3];
+                if (totals[listing[0]] <= 15 && totals[listing[2]] <= 15) {
+                    visit(slot + 1, build << BUILD_BITS | i, price + prices[slot][i]);
                 }
-                valueMap.put(itemSets.get(1).get(ear1).engraving1.engravingType, valueMap.get(itemSets.get(1).get(ear1).engraving1.engravingType) - ear1Engraving1);
-                valueMap.put(itemSets.get(1).get(ear1).engraving2.engravingType, valueMap.get(itemSets.get(1).get(ear1).engraving2.engravingType) - ear1Engraving2);
+                totals[listing[0]] -= listing[1];
+                totals[listing[2]] -= listing[3];
+            }
+        }
+
+        // isValidCombination on the totals, then the books addBooks would add
+        private void offer(long build, int price) {
+            for (int engraving = 0; engraving < totals.length; engraving++) {
+                int total = totals[engraving];
+                if (total == 3) {
+                    price += books1[engraving];
+                } else if (total == 6) {
+                    price += books2[engraving];
+                } else if (total != 15) {
+                    return;
+                }
+            }
+            sink.accept(build, price);
+        }
+
+        private static int[] bookPrices(List<Item> books) {
+            int[] prices = new int[EngravingType.values().length];
+            for (int engraving = 0; engraving < prices.length; engraving++) {
+                EngravingType type = EngravingType.values()[engraving];
+                prices[engraving] = books.stream().filter(item -> item.engraving1.engravingType.equals(type)).findFirst().map(item -> item.price).orElse(0);
             }
+            return prices;
         }
-        return permutations;
     }
 
     static boolean isValidCombination(List<Item> items) {
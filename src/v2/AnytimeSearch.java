@@ -0,0 +1,116 @@
+package v2;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * The cheapest build that can be found before a deadline, for callers that must answer in time even when the full
+ * search would take longer.
+ * <p>
+ * It starts from a greedy build: every slot takes its cheapest listing that still leaves the targets reachable
+ * according to the {@link SuffixTable}, so it only backtracks when a mirrored slot's one fitting listing is the one
+ * already taken. That build seeds a {@link BranchAndBoundSearch} keeping a single build, which from then on only
+ * finds strictly cheaper ones. Each of them is handed to the listener as soon as it is found, and at the deadline
+ * the search unwinds and returns the best one so far.
+ */
+@Slf4j
+final class AnytimeSearch {
+
+    private AnytimeSearch() {
+    }
+
+    @Value
+    static class Result {
+        // null when no valid build was found
+        List<Item> build;
+        long price;
+        // false when the deadline ended the search before every cheaper build was ruled out
+        boolean optimal;
+    }
+
+    /**
+     * @param onImprovement called on the searching thread with every build cheaper than all before it, each with
+     *                      {@code optimal} false
+     */
+    static Result search(List<List<Item>> itemSets, long[] targets, Instant deadline, Consumer<Result> onImprovement) {
+        PackedItemSets packed = PackedItemSets.sortedByPrice(itemSets);
+        if (BranchAndBoundSearch.isEmpty(packed)) {
+            return new Result(null, Calculator.UNAVAILABLE, true);
+        }
+
+        SuffixTable suffixes = BranchAndBoundSearch.suffixes(packed, targets);
+        BranchAndBoundSearch search = new BranchAndBoundSearch(packed, suffixes, 1, new AtomicLong(Long.MAX_VALUE));
+        long budget = Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+        search.limit(System.nanoTime() + budget, (price, build) -> onImprovement.accept(new Result(packed.combination(build), price, false)));
+        int[] greedy = greedy(packed, suffixes);
+        if (greedy == null) {
+            return new Result(null, Calculator.UNAVAILABLE, true);
+        }
+        search.seed(price(packed, greedy, suffixes), greedy);
+        search.visitWith(-1, 0, null);
+
+        TopBuilds top = search.top();
+        boolean optimal = !search.isTimedOut();
+        if (top.size() == 0) {
+            return new Result(null, Calculator.UNAVAILABLE, optimal);
+        }
+        return new Result(packed.combination(top.build(0)), top.price(0), optimal);
+    }
+
+    /**
+     * The greedy build as positions into {@code packed}, or null when no build reaches the targets.
+     */
+    static int[] greedy(PackedItemSets packed, SuffixTable suffixes) {
+        int[] build = new int[SLOTS];
+        return suffixes.isReachable(0, 0) && greedy(packed, suffixes, 0, 0, build) ? build : null;
+    }
+
+    private static boolean greedy(PackedItemSets packed, SuffixTable suffixes, int slot, long state, int[] build) {
+        for (int i = slot == 0 ? 0 : packed.firstPosition(slot, build[slot - 1]); i < packed.deltas[slot].length; i++) {
+            long next = state + packed.deltas[slot][i];
+            if (!suffixes.isReachable(slot + 1, next)) {
+                continue;
+            }
+            build[slot] = i;
+            if (slot == SLOTS - 1 || greedy(packed, suffixes, slot + 1, next, build)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long price(PackedItemSets packed, int[] build, SuffixTable suffixes) {
+        long price = 0;
+        long state = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            price += packed.prices[slot][build[slot]];
+            state += packed.deltas[slot][build[slot]];
+        }
+        return price + suffixes.cost(SLOTS, state);
+    }
+
+    /**
+     * {@link Solver} that gives the search {@link Calculator#TIME_BUDGET_MILLIS} and logs what it finds on the way.
+     */
+    static List<List<Item>> search(List<List<Item>> itemSets, long[] targets, int k) {
+        Instant deadline = Instant.now().plusMillis(Calculator.TIME_BUDGET_MILLIS);
+        Result result = search(itemSets, targets, deadline,
+                improvement -> log.info("{} Found a build for {}", LocalDateTime.now(), improvement.price));
+        log.info("{} Best build {} is {}", LocalDateTime.now(), result.price, result.optimal ? "optimal" : "the best found in time");
+        List<List<Item>> permutations = new ArrayList<>();
+        if (result.build != null) {
+            permutations.add(result.build);
+        }
+        return permutations;
+    }
+}
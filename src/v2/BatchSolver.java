@@ -0,0 +1,161 @@
+package v2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * Solves many {@link SolveProfile}s against the same listings in one pass.
+ * <p>
+ * The accessories are split like {@link MeetInTheMiddleSearch}: NECKLACE through EARRING_2 and RING_1/RING_2 are
+ * enumerated once for every profile, the rings are extended by each stone any profile can use, and every left
+ * state is then checked against the union of all profiles' targets. A match is handed to each profile that has
+ * that target and stone, and profiles with the same books and stones share one result.
+ * <p>
+ * The books are priced from the snapshot once for every pair of book points among the profiles, so each profile is
+ * ranked on the books it would actually buy.
+ */
+final class BatchSolver {
+
+    private static final int LEFT = 3;
+    private static final int RINGS = 2;
+
+    private BatchSolver() {
+    }
+
+    /**
+     * @param itemSets listings as built by {@link Calculator#getItemSets()}, whose STONE and book lists are ignored
+     * @param snapshot where the books of every profile are priced
+     * @return the {@code k} cheapest builds of every profile, in the order of {@code profiles}
+     */
+    @SuppressWarnings("unchecked")
+    static List<List<List<Item>>> solve(List<List<Item>> itemSets, PriceSnapshot snapshot, List<SolveProfile> profiles, int k) {
+        List<Item> stones = new ArrayList<>();
+        for (SolveProfile profile : profiles) {
+            for (Item stone : profile.stones()) {
+                if (!stones.contains(stone)) {
+                    stones.add(stone);
+                }
+            }
+        }
+        List<List<Item>> shared = new ArrayList<>(itemSets);
+        shared.set(ItemType.STONE.ordinal(), stones);
+        PackedItemSets packed = PackedItemSets.sortedByPrice(ListingFilter.reduce(shared, k));
+
+        List<List<List<Item>>> results = new ArrayList<>();
+        if (BranchAndBoundSearch.isEmpty(packed)) {
+            profiles.forEach(profile -> results.add(new ArrayList<>()));
+            return results;
+        }
+
+        // profiles with the same books and stones only need to be solved once
+        Map<List<Object>, Integer> groups = new LinkedHashMap<>();
+        Map<List<Integer>, BookTable> bookTables = new HashMap<>();
+        int[] groupOf = new int[profiles.size()];
+        List<boolean[]> groupStones = new ArrayList<>();
+        List<BookTable> groupBooks = new ArrayList<>();
+        Map<Long, List<Integer>> targetGroups = new HashMap<>();
+        for (int p = 0; p < profiles.size(); p++) {
+            SolveProfile profile = profiles.get(p);
+            long[] targets = profile.targets();
+            boolean[] usable = usableStones(packed, profile.stones());
+            List<Integer> bookPoints = Arrays.asList(profile.getBook1Points(), profile.getBook2Points());
+            List<Object> key = Arrays.asList(bookPoints, Arrays.toString(usable));
+            Integer group = groups.get(key);
+            if (group == null) {
+                group = groups.size();
+                groups.put(key, group);
+                groupStones.add(usable);
+                groupBooks.add(bookTables.computeIfAbsent(bookPoints, points -> books(shared, snapshot, profile, targets)));
+                for (long target : targets) {
+                    targetGroups.computeIfAbsent(target, t -> new ArrayList<>()).add(group);
+                }
+            }
+            groupOf[p] = group;
+        }
+
+        SearchStats.Counters counters = new SearchStats.Counters();
+        Map<Long, TopBuilds> left = MeetInTheMiddleSearch.enumerate(packed, 0, LEFT, k, counters);
+        Map<Long, TopBuilds> rings = MeetInTheMiddleSearch.enumerate(packed, LEFT, RINGS, k, counters);
+        Map<Long, TopBuilds>[] right = new Map[packed.deltas[ItemType.STONE.ordinal()].length];
+        for (int stone = 0; stone < right.length; stone++) {
+            right[stone] = withStone(packed, rings, stone, k, counters);
+        }
+
+        TopBuilds[] tops = new TopBuilds[groups.size()];
+        for (int group = 0; group < tops.length; group++) {
+            tops[group] = new TopBuilds(k, SLOTS);
+        }
+        int[] build = new int[SLOTS];
+        for (Map.Entry<Long, TopBuilds> leftEntry : left.entrySet()) {
+            long leftState = leftEntry.getKey();
+            for (Map.Entry<Long, List<Integer>> target : targetGroups.entrySet()) {
+                long rightState = MeetInTheMiddleSearch.remainder(target.getKey(), leftState);
+                if (rightState < 0) {
+                    continue;
+                }
+                for (int stone = 0; stone < right.length; stone++) {
+                    TopBuilds rightBuilds = right[stone].get(rightState);
+                    if (rightBuilds == null) {
+                        continue;
+                    }
+                    for (int group : target.getValue()) {
+                        if (groupStones.get(group)[stone]) {
+                            long books = groupBooks.get(group).costOf(target.getKey());
+                            MeetInTheMiddleSearch.join(leftEntry.getValue(), rightBuilds, books, tops[group], build, counters);
+                        }
+                    }
+                }
+            }
+        }
+
+        counters.flush();
+        for (int p = 0; p < profiles.size(); p++) {
+            results.add(SearchStats.ranked(tops[groupOf[p]], packed));
+        }
+        return results;
+    }
+
+    private static BookTable books(List<List<Item>> itemSets, PriceSnapshot snapshot, SolveProfile profile, long[] targets) {
+        return BookTable.of(Calculator.withBooks(itemSets, profile, snapshot), targets);
+    }
+
+    private static boolean[] usableStones(PackedItemSets packed, List<Item> stones) {
+        int slot = ItemType.STONE.ordinal();
+        boolean[] usable = new boolean[packed.itemIndices[slot].length];
+        for (int position = 0; position < usable.length; position++) {
+            usable[position] = stones.contains(packed.itemSets.get(slot).get(packed.itemIndices[slot][position]));
+        }
+        return usable;
+    }
+
+    // RING_1/RING_2 builds with the given stone added, keyed by their new state
+    private static Map<Long, TopBuilds> withStone(PackedItemSets packed, Map<Long, TopBuilds> rings, int stone, int k,
+                                                  SearchStats.Counters counters) {
+        int slot = ItemType.STONE.ordinal();
+        Map<Long, TopBuilds> right = new HashMap<>();
+        int[] build = new int[RINGS + 1];
+        build[RINGS] = stone;
+        for (Map.Entry<Long, TopBuilds> entry : rings.entrySet()) {
+            long state = entry.getKey() + packed.deltas[slot][stone];
+            if (PackedEngravings.overflows(state)) {
+                counters.overflowPruned++;
+                continue;
+            }
+            TopBuilds ringBuilds = entry.getValue();
+            counters.nodes[slot] += ringBuilds.size();
+            TopBuilds builds = new TopBuilds(k, RINGS + 1);
+            for (int i = 0; i < ringBuilds.size(); i++) {
+                System.arraycopy(ringBuilds.build(i), 0, build, 0, RINGS);
+                builds.offer(ringBuilds.price(i) + packed.prices[slot][stone], build);
+            }
+            right.put(state, builds);
+        }
+        return right;
+    }
+}
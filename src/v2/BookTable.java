@@ -0,0 +1,103 @@
+package v2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The cheapest pair of books for every target state, so the searches rank builds on what they really cost and
+ * {@link Calculator#addBooks(List, List)} needs no lookups of its own.
+ * <p>
+ * A target is an accessory state that the BOOKS_1 and BOOKS_2 listings of the item sets lift to 15 on every
+ * engraving: one engraving sits at 15 minus the BOOKS_1 points, another at 15 minus the BOOKS_2 points. With 12/12
+ * books both sit at 3 and either can take either book, so the cheaper way round is kept. A target whose books are
+ * not listed costs {@link Calculator#UNAVAILABLE} and gets none.
+ */
+final class BookTable {
+
+    private static final int BOOKS_1 = ItemType.BOOKS_1.ordinal();
+    private static final int BOOKS_2 = ItemType.BOOKS_2.ordinal();
+
+    // sorted, costs[i] and books[i] belong to targets[i]
+    private final long[] targets;
+    private final long[] costs;
+    private final Item[][] books;
+    private final long minCost;
+
+    private BookTable(long[] targets, long[] costs, Item[][] books) {
+        this.targets = targets;
+        this.costs = costs;
+        this.books = books;
+        this.minCost = Arrays.stream(costs).min().orElse(0);
+    }
+
+    static BookTable of(List<List<Item>> itemSets, long[] targets) {
+        Item[] books1 = byEngraving(itemSets.get(BOOKS_1));
+        Item[] books2 = byEngraving(itemSets.get(BOOKS_2));
+        long[] costs = new long[targets.length];
+        Item[][] books = new Item[targets.length][];
+        for (int t = 0; t < targets.length; t++) {
+            costs[t] = Calculator.UNAVAILABLE;
+            books[t] = new Item[0];
+            for (int e1 = 0; e1 < books1.length; e1++) {
+                for (int e2 = 0; e2 < books2.length; e2++) {
+                    if (e1 == e2 || books1[e1] == null || books2[e2] == null
+                            || !fills(targets[t], e1, books1[e1]) || !fills(targets[t], e2, books2[e2])) {
+                        continue;
+                    }
+                    long cost = books1[e1].price + books2[e2].price;
+                    if (cost < costs[t]) {
+                        costs[t] = cost;
+                        books[t] = new Item[]{books1[e1], books2[e2]};
+                    }
+                }
+            }
+        }
+        return new BookTable(targets, costs, books);
+    }
+
+    /**
+     * Cost of the books for the target at {@code index} in the targets the table was built for.
+     */
+    long cost(int index) {
+        return costs[index];
+    }
+
+    /**
+     * Cost of the books for {@code state}, which has to be one of the targets.
+     */
+    long costOf(long state) {
+        return costs[Arrays.binarySearch(targets, state)];
+    }
+
+    /**
+     * The cheapest books of any target, the least any build still has to pay for them.
+     */
+    long minCost() {
+        return minCost;
+    }
+
+    /**
+     * The books that complete a build reaching {@code state}, none if it is not a target.
+     */
+    List<Item> books(long state) {
+        int index = Arrays.binarySearch(targets, state);
+        return index < 0 ? new ArrayList<>() : Arrays.asList(books[index]);
+    }
+
+    private static boolean fills(long target, int engraving, Item book) {
+        return PackedEngravings.points(target, engraving) + book.engraving1.points == PackedEngravings.MAX_POINTS;
+    }
+
+    private static Item[] byEngraving(List<Item> books) {
+        Item[] byEngraving = new Item[EngravingType.values().length];
+        for (Item book : books) {
+            int engraving = book.engraving1.engravingType.ordinal();
+            // the first listing of an engraving, like the lookup this replaces
+            if (byEngraving[engraving] == null) {
+                byEngraving[engraving] = book;
+            }
+        }
+        return byEngraving;
+    }
+}
@@ -0,0 +1,240 @@
+package v2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * Depth-first search over price-sorted slots that keeps the cheapest {@code k} valid builds and abandons a subtree
+ * as soon as its partial price plus the cheapest possible remaining slots can no longer beat the worst of them.
+ * <p>
+ * The price ranked is the whole purchase: a leaf adds the cost of the books its target state needs from the
+ * {@link BookTable}. A partial build whose state the {@link SuffixTable} does not have is dropped however cheap it
+ * is, and one that is kept is bounded by the cheapest way its own state can still be completed.
+ */
+final class BranchAndBoundSearch {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    // visits between two looks at the clock
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final PackedItemSets packed;
+    private final SuffixTable suffixes;
+    // minRemaining[slot] = cheapest completion of any state before slot, the bound for listings sorted by price
+    private final long[] minRemaining = new long[SLOTS + 1];
+    private final int[] indices = new int[SLOTS];
+    // worst kept price of any instance sharing it, only ever lowered
+    private final AtomicLong sharedBound;
+    private final TopBuilds top;
+    private final SearchStats.Counters counters = new SearchStats.Counters();
+
+    // set for the duration of visitWith only
+    private int forcedSlot = -1;
+    private int forcedPosition;
+    private boolean[][] excluded;
+
+    // System.nanoTime() past which visits return at once, and who hears about every new cheapest build
+    private long deadline = NO_DEADLINE;
+    private int untilDeadlineCheck = DEADLINE_CHECK_INTERVAL;
+    private boolean timedOut;
+    private TopBuilds.BuildConsumer onImprovement;
+    private long bestPrice = Long.MAX_VALUE;
+
+    BranchAndBoundSearch(PackedItemSets packed, long[] targets, int k, AtomicLong sharedBound) {
+        this(packed, suffixes(packed, targets), k, sharedBound);
+    }
+
+    /**
+     * Shares {@code suffixes}, built by {@link #suffixes}, with other instances over the same listings and targets.
+     */
+    BranchAndBoundSearch(PackedItemSets packed, SuffixTable suffixes, int k, AtomicLong sharedBound) {
+        this.packed = packed;
+        this.suffixes = suffixes;
+        this.sharedBound = sharedBound;
+        this.top = new TopBuilds(k, SLOTS);
+        for (int slot = 0; slot <= SLOTS; slot++) {
+            minRemaining[slot] = suffixes.minCost(slot);
+        }
+    }
+
+    static List<List<Item>> search(List<List<Item>> itemSets, long[] targets, int k) {
+        PackedItemSets packed = PackedItemSets.sortedByPrice(itemSets);
+        if (isEmpty(packed)) {
+            return new ArrayList<>();
+        }
+
+        BranchAndBoundSearch search = new BranchAndBoundSearch(packed, targets, k, new AtomicLong(Long.MAX_VALUE));
+        search.visit(0, 0, 0);
+        search.counters.flush();
+        return SearchStats.ranked(search.top, packed);
+    }
+
+    static SuffixTable suffixes(PackedItemSets packed, long[] targets) {
+        return SuffixTable.of(packed, targets, BookTable.of(packed.itemSets, targets));
+    }
+
+    static boolean isEmpty(PackedItemSets packed) {
+        for (long[] prices : packed.prices) {
+            if (prices.length == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches every build whose first two slots are the given listings.
+     */
+    void visitPrefix(int neck, int ear1) {
+        long price = packed.prices[0][neck] + packed.prices[1][ear1];
+        if (isOutOfReach(price + minRemaining[2])) {
+            counters.boundPruned++;
+            return;
+        }
+        long state = packed.deltas[0][neck] + packed.deltas[1][ear1];
+        if (PackedEngravings.overflows(state)) {
+            counters.overflowPruned++;
+            return;
+        }
+        long completion = suffixes.cost(2, state);
+        if (completion == SuffixTable.UNREACHABLE) {
+            counters.infeasiblePruned++;
+            return;
+        }
+        if (isOutOfReach(price + completion)) {
+            counters.boundPruned++;
+            return;
+        }
+        counters.nodes[1]++;
+        indices[0] = neck;
+        indices[1] = ear1;
+        visit(2, state, price);
+        counters.flush();
+    }
+
+    /**
+     * Searches every build that has the listing at {@code position} in {@code slot}, skipping builds that contain
+     * any listing marked in {@code excluded}.
+     */
+    void visitWith(int slot, int position, boolean[][] excluded) {
+        this.forcedSlot = slot;
+        this.forcedPosition = position;
+        this.excluded = excluded;
+        try {
+            visit(0, 0, 0);
+        } finally {
+            this.forcedSlot = -1;
+            this.excluded = null;
+            counters.flush();
+        }
+    }
+
+    /**
+     * Keeps a build found elsewhere, e.g. by a previous search over the same listings, at its price with books.
+     */
+    void seed(long price, int[] build) {
+        System.arraycopy(build, 0, indices, 0, SLOTS);
+        offer(price);
+    }
+
+    TopBuilds top() {
+        return top;
+    }
+
+    /**
+     * Makes the visits give up once {@code System.nanoTime()} passes {@code deadline}, and reports each build that
+     * is cheaper than every one kept before it to {@code onImprovement}, on the searching thread.
+     */
+    void limit(long deadline, TopBuilds.BuildConsumer onImprovement) {
+        this.deadline = deadline;
+        this.onImprovement = onImprovement;
+    }
+
+    /**
+     * Whether a visit was cut short by the deadline, so that the kept builds are not proven to be the cheapest.
+     */
+    boolean isTimedOut() {
+        return timedOut;
+    }
+
+    private void visit(int slot, long state, long price) {
+        if (isPastDeadline()) {
+            return;
+        }
+        long[] deltas = packed.deltas[slot];
+        long[] prices = packed.prices[slot];
+        long rest = minRemaining[slot + 1];
+
+        int first = slot == 0 ? 0 : packed.firstPosition(slot, indices[slot - 1]);
+        int from = slot == forcedSlot ? Math.max(forcedPosition, first) : first;
+        int to = slot == forcedSlot ? forcedPosition + 1 : deltas.length;
+
+        for (int i = from; i < to; i++) {
+            long nextPrice = price + prices[i];
+            // listings are sorted by price, so every later one is out of reach as well
+            if (isOutOfReach(nextPrice + rest)) {
+                counters.boundPruned++;
+                break;
+            }
+            long next = state + deltas[i];
+            if (PackedEngravings.overflows(next)) {
+                counters.overflowPruned++;
+                continue;
+            }
+            if (excluded != null && excluded[slot][i]) {
+                continue;
+            }
+            // at the leaf the books of the target reached, if any
+            long completion = suffixes.cost(slot + 1, next);
+            if (slot == SLOTS - 1) {
+                counters.nodes[slot]++;
+                counters.leaves++;
+                if (completion != SuffixTable.UNREACHABLE) {
+                    counters.validBuilds++;
+                    indices[slot] = i;
+                    offer(nextPrice + completion);
+                }
+                continue;
+            }
+            if (completion == SuffixTable.UNREACHABLE) {
+                counters.infeasiblePruned++;
+                continue;
+            }
+            if (isOutOfReach(nextPrice + completion)) {
+                counters.boundPruned++;
+                continue;
+            }
+            counters.nodes[slot]++;
+            indices[slot] = i;
+            visit(slot + 1, next, nextPrice);
+        }
+    }
+
+    private boolean isOutOfReach(long lowerBound) {
+        // a tie with another instance's worst build may still rank ahead of it on slot positions
+        return lowerBound >= top.worstPrice() || lowerBound > sharedBound.get();
+    }
+
+    private boolean isPastDeadline() {
+        if (deadline == NO_DEADLINE || --untilDeadlineCheck > 0) {
+            return timedOut;
+        }
+        untilDeadlineCheck = DEADLINE_CHECK_INTERVAL;
+        timedOut |= System.nanoTime() - deadline >= 0;
+        return timedOut;
+    }
+
+    private void offer(long price) {
+        if (top.offer(price, indices) && top.isFull()) {
+            sharedBound.accumulateAndGet(top.worstPrice(), Math::min);
+        }
+        if (price < bestPrice) {
+            bestPrice = price;
+            if (onImprovement != null) {
+                onImprovement.accept(price, indices);
+            }
+        }
+    }
+}
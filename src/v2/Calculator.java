@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import lombok.Data;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import v2.SearchStats.Phase;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
@@ -11,6 +12,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +38,23 @@ enum EngravingType {
     VITAL_POINT_HIT
 }
 
+enum SearchMode {
+    LEGACY((itemSets, targets, k) -> Calculator.buildPermutations(Calculator.materialized(itemSets))),
+    PACKED(Calculator::buildPackedPermutations),
+    BRANCH_AND_BOUND(BranchAndBoundSearch::search),
+    PARALLEL((itemSets, targets, k) -> ParallelSearch.search(itemSets, targets, k, Calculator.PARALLELISM)),
+    MEET_IN_THE_MIDDLE(MeetInTheMiddleSearch::search),
+    DYNAMIC_PROGRAMMING(DynamicProgrammingSearch::search),
+    GENERIC(GenericSolver::search),
+    ANYTIME(AnytimeSearch::search);
+
+    final Solver solver;
+
+    SearchMode(Solver solver) {
+        this.solver = solver;
+    }
+}
+
 @Slf4j
 public class Calculator {
 
@@ -55,8 +74,34 @@ public class Calculator {
     public static Engraving engraving2 = new Engraving(EngravingType.HEAVY_ARMOR, 5);
     public static Item STONE = new Item(ItemType.STONE, engraving1, engraving2, 0); // or null
 
+    // where solved snapshots are kept between runs (e.g. "solveCache.bin"), or null to always search
+    public static String CACHE_FILE = null;
+
+    // keep running and re-solve whenever FILE_NAME changes?
+    public static boolean WATCH = false;
+
+    // which search engine should walk the item sets?
+    public static SearchMode SEARCH_MODE = SearchMode.BRANCH_AND_BOUND;
+    // how many of the cheapest builds should be kept? (LEGACY always keeps its last 5 improvements, ANYTIME just 1)
+    public static int TOP_K = 5;
+    public static int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // how long ANYTIME may search before it settles for the best build found so far
+    public static long TIME_BUDGET_MILLIS = 1000;
+    // where to write how cheap every listing would have to get to make the top-K, or null to skip
+    public static String SENSITIVITY_FILE = null;
+    // let PACKED check RING_2 and STONE with the Vector API? only takes effect with --add-modules jdk.incubator.vector
+    public static boolean VECTORIZE = true;
+    // also log the cheapest build of every engraving outcome that no cheaper build reaches as well?
+    public static boolean PARETO_FRONT = false;
+    // are the two earrings and the two rings bought from one pool? prices EARRING_2 and RING_2 from the EARRING_1 and
+    // RING_1 rows, so the searches skip every build whose copy with the pair swapped they already tried
+    public static boolean INTERCHANGEABLE_PAIRS = false;
+
     /* end of settings */
 
+    // price of a listing that cannot be bought
+    static final long UNAVAILABLE = 9999999;
+
 
     @SneakyThrows
     public static Stream<String> fileStream(String fileName) {
@@ -64,45 +109,72 @@ public class Calculator {
     }
 
     public static void main(String[] a) {
-        List<List<Item>> itemSets = getItemSets();
+        SearchStats.register();
+        List<List<Item>> itemSets = SearchStats.time(Phase.ITEM_SETS, () -> getItemSets());
 
         if (GENERATE_NEW_FILE) {
             outputItems(itemSets);
         }
 
-        getPrices(itemSets);
+        if (WATCH) {
+            IncrementalSolver.watch();
+            return;
+        }
 
-        List<List<Item>> filteredPermutations = getFilteredPermutations(itemSets);
+        PriceSnapshot snapshot = SearchStats.time(Phase.LOAD, () -> PriceSnapshot.load(FILE_NAME));
+        SearchStats.time(Phase.LOAD, () -> getPrices(itemSets, snapshot));
 
-        filteredPermutations.sort((itemList1, itemList2) -> Long
-                .compare(itemList1.stream().mapToLong(item -> item.price).sum(), itemList2.stream().mapToLong(item -> item.price).sum()));
+        // already cheapest first, the solvers return their top-K in price order
+        List<List<Item>> filteredPermutations = getFilteredPermutations(itemSets, snapshot);
 
         log.info("{} Done", LocalDateTime.now());
 
 //        List<List<Item>> collect = filteredPermutations.stream()
 //                .filter(Calculator::existingStone)
 //                .collect(Collectors.toList());
-        for( List<Item> itemList: filteredPermutations) {
+        logPermutations(filteredPermutations);
+//        List<Item> itemList = filteredPermutations.get(0);
+        if (SENSITIVITY_FILE != null) {
+            List<PriceSensitivity.Entry> report = PriceSensitivity.report(itemSets, PackedEngravings.targets(BOOK_1_POINTS, BOOK_2_POINTS), TOP_K);
+            PriceSensitivity.write(report, SENSITIVITY_FILE);
+            log.info("{} Wrote break-even prices of {} listings to {}", LocalDateTime.now(), report.size(), SENSITIVITY_FILE);
+        }
+        if (PARETO_FRONT) {
+            for (ParetoFront.Point point : ParetoFront.of(itemSets)) {
+                log.info("{} Pareto - {} - {} at 3, {} at 2+, {} at 1+ - {}", LocalDateTime.now(), point.getPrice(), point.getThrees(), point.getTwos(), point.getOnes(), point.getBuild());
+            }
+        }
+        log.info("{} Stats {}", LocalDateTime.now(), SearchStats.STATS.getSummary());
+
+    }
+
+    static void logPermutations(List<List<Item>> permutations) {
+        for( List<Item> itemList: permutations) {
             long price = itemList.stream().mapToLong(item -> item.price).sum();
             log.info("{} Cheapest - {} - {}", LocalDateTime.now(), price, itemList);
         }
-//        List<Item> itemList = filteredPermutations.get(0);
-
     }
 
-    private static List<List<Item>> getFilteredPermutations(List<List<Item>> itemSets) {
+    private static List<List<Item>> getFilteredPermutations(List<List<Item>> itemSets, PriceSnapshot snapshot) {
         log.info("{} Generating permutations", LocalDateTime.now());
-        List<List<Item>> permutations = buildPermutations(itemSets);
+        // a deadline-limited answer depends on the machine's speed, so it is not worth keeping
+        List<List<Item>> permutations = CACHE_FILE == null || SEARCH_MODE == SearchMode.ANYTIME
+                ? search(itemSets)
+                : new ResultCache(CACHE_FILE).computeIfAbsent(snapshot, itemSets, () -> search(itemSets));
 
 //        log.info("{} Filtering permutations", LocalDateTime.now());
 //        List<List<Item>> filteredPermutations = permutations.stream().filter(Calculator::isValidCombination).collect(Collectors.toList());
 
         log.info("{} Adding books", LocalDateTime.now());
-        addBooks(permutations, itemSets);
+        SearchStats.time(Phase.BOOKS, () -> addBooks(permutations, itemSets));
         log.info("{} Done, total={} ", LocalDateTime.now(), permutations.size());
         return permutations;
     }
 
+    static List<List<Item>> search(List<List<Item>> itemSets) {
+        return SearchStats.time(Phase.SEARCH, () -> SEARCH_MODE.solver.solve(ListingFilter.reduce(itemSets, TOP_K), PackedEngravings.targets(BOOK_1_POINTS, BOOK_2_POINTS), TOP_K));
+    }
+
     @SneakyThrows
     private static void outputItems(List<List<Item>> itemSets) {
         BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_NAME));
@@ -115,32 +187,82 @@ public class Calculator {
 //                itemList.get(5).engraving1.engravingType.equals(EngravingType.GRUDGE) && itemList.get(5).engraving2.engravingType.equals(EngravingType.SUPER_CHARGE);
 //    }
 
-    private static void getPrices(List<List<Item>> itemSets) {
-        List<String> collect = fileStream(FILE_NAME).collect(Collectors.toList());
-        for (int i = 0; i < 50; i++) {
-            itemSets.get(0).get(i).price = Integer.parseInt(collect.get(i).split(",")[3]);
-        }
-        for (int i = 0; i < 50; i++) {
-            itemSets.get(1).get(i).price = Integer.parseInt(collect.get(50 + i).split(",")[3]);
-        }
-        for (int i = 0; i < 50; i++) {
-            itemSets.get(2).get(i).price = Integer.parseInt(collect.get(100 + i).split(",")[3]);
-        }
-        for (int i = 0; i < 50; i++) {
-            itemSets.get(3).get(i).price = Integer.parseInt(collect.get(150 + i).split(",")[3]);
-        }
-        for (int i = 0; i < 50; i++) {
-            itemSets.get(4).get(i).price = Integer.parseInt(collect.get(200 + i).split(",")[3]);
+    /**
+     * Replaces every accessory in NECKLACE through RING_2 with one listing of its engravings per row in
+     * {@link #FILE_NAME}, or one priced {@link #UNAVAILABLE} if there is none, and gives each book its cheapest
+     * listing. The accessories become {@link ListingColumns}; the STONE list is your own and stays as it is.
+     */
+    static void getPrices(List<List<Item>> itemSets) {
+        getPrices(itemSets, PriceSnapshot.load(FILE_NAME));
+    }
+
+    static void getPrices(List<List<Item>> itemSets, PriceSnapshot snapshot) {
+        for (int slot = 0; slot < 5; slot++) {
+            List<Item> items = itemSets.get(slot);
+            long[][] prices = new long[items.size()][];
+            int size = 0;
+            boolean pooled = INTERCHANGEABLE_PAIRS && (slot == ItemType.EARRING_2.ordinal() || slot == ItemType.RING_2.ordinal());
+            for (int i = 0; i < prices.length; i++) {
+                Item item = items.get(i);
+                prices[i] = snapshot.prices(pooled ? new Item(ItemType.values()[slot - 1], item.engraving1, item.engraving2, 0) : item);
+                if (prices[i].length == 0) {
+                    prices[i] = new long[]{UNAVAILABLE};
+                }
+                size += prices[i].length;
+            }
+            ListingColumns listings = new ListingColumns(ItemType.values()[slot], size);
+            for (int i = 0; i < prices.length; i++) {
+                for (long price : prices[i]) {
+                    listings.add(items.get(i).engraving1, items.get(i).engraving2, price);
+                }
+            }
+            itemSets.set(slot, listings);
         }
-        for (int i = 0; i < 5; i++) {
-            itemSets.get(6).get(i).price = Integer.parseInt(collect.get(251 + i).split(",")[3]);
-            if (BOOK_1_POINTS == 12 && BOOK_2_POINTS == 12) {
-                itemSets.get(7).get(i).price = Integer.parseInt(collect.get(251 + i).split(",")[3]);
+        getBookPrices(itemSets, snapshot);
+    }
+
+    /**
+     * Gives each book of the BOOKS_1/BOOKS_2 lists its cheapest listing, {@link #UNAVAILABLE} if there is none. A
+     * BOOKS_2 without listings of its own costs what the BOOKS_1 of its engraving does when their points match.
+     */
+    static void getBookPrices(List<List<Item>> itemSets, PriceSnapshot snapshot) {
+        for (int i = 0; i < itemSets.get(6).size(); i++) {
+            Item book1 = itemSets.get(6).get(i);
+            Item book2 = itemSets.get(7).get(i);
+            long[] book1Prices = snapshot.prices(book1);
+            long[] book2Prices = snapshot.prices(book2);
+            book1.price = book1Prices.length > 0 ? book1Prices[0] : UNAVAILABLE;
+            if (book2Prices.length > 0) {
+                book2.price = book2Prices[0];
+            } else if (book1.engraving1.points == book2.engraving1.points) {
+                book2.price = book1.price;
+            } else {
+                book2.price = UNAVAILABLE;
             }
         }
     }
 
-    private static List<List<Item>> getItemSets() {
+    /**
+     * The item sets with BOOKS_1/BOOKS_2 lists of the profile's book points, priced from the snapshot; the other
+     * lists are shared, not copied.
+     */
+    static List<List<Item>> withBooks(List<List<Item>> itemSets, SolveProfile profile, PriceSnapshot snapshot) {
+        List<List<Item>> withBooks = new ArrayList<>(itemSets);
+        withBooks.set(ItemType.BOOKS_1.ordinal(), books(ItemType.BOOKS_1, profile.getBook1Points()));
+        withBooks.set(ItemType.BOOKS_2.ordinal(), books(ItemType.BOOKS_2, profile.getBook2Points()));
+        getBookPrices(withBooks, snapshot);
+        return withBooks;
+    }
+
+    static SolveProfile profile() {
+        return new SolveProfile(CLASS_ENGRAVING, BOOK_1_POINTS, BOOK_2_POINTS, STONE);
+    }
+
+    static List<List<Item>> getItemSets() {
+        return getItemSets(profile());
+    }
+
+    static List<List<Item>> getItemSets(SolveProfile profile) {
         List<List<Item>> itemSets = new ArrayList<>();
 
         for (ItemType itemType : ItemType.values()) {
@@ -159,31 +281,23 @@ public class Calculator {
             }
         }
 
-        List<Item> itemList = new ArrayList<>();
-        if (STONE != null) {
-            itemList.add(STONE);
-        } else {
-            for (int i = 0; i < EngravingType.values().length - 1; i++) {
-                for (int j = i + 1; j < EngravingType.values().length; j++) {
-                    if (EngravingType.values()[i] != CLASS_ENGRAVING && EngravingType.values()[j] != CLASS_ENGRAVING) {
-                        itemList.add(new Item(ItemType.STONE, new Engraving(EngravingType.values()[i], 7), new Engraving(EngravingType.values()[j], 7), 0));
-                    }
-                }
-            }
-        }
-
-        itemList = new ArrayList<>();
-        for (EngravingType engraving1 : EngravingType.values()) {
-            itemList.add(new Item(ItemType.BOOKS_1, new Engraving(engraving1, BOOK_1_POINTS), null, 0));
-        }
+        List<Item> itemList = profile.stones();
         itemSets.add(itemList);
 
-        itemList = new ArrayList<>();
+        itemSets.add(books(ItemType.BOOKS_1, profile.getBook1Points()));
+        itemSets.add(books(ItemType.BOOKS_2, profile.getBook2Points()));
+        return itemSets;
+    }
+
+    /**
+     * One unpriced book of the given points per engraving.
+     */
+    static List<Item> books(ItemType booksType, int points) {
+        List<Item> itemList = new ArrayList<>();
         for (EngravingType engraving1 : EngravingType.values()) {
-            itemList.add(new Item(ItemType.BOOKS_2, new Engraving(engraving1, BOOK_2_POINTS), null, 0));
+            itemList.add(new Item(booksType, new Engraving(engraving1, points), null, 0));
         }
-        itemSets.add(itemList);
-        return itemSets;
+        return itemList;
     }
 
     @SneakyThrows
@@ -191,9 +305,17 @@ public class Calculator {
         writer.write(item.toString() + System.lineSeparator());
     }
 
+    /**
+     * Every list copied into plain {@link Item}s. {@link ListingColumns#get} builds a new item on each call and the
+     * legacy loops below call it several times per node, so they get their items once, up front.
+     */
+    static List<List<Item>> materialized(List<List<Item>> itemSets) {
+        return itemSets.stream().<List<Item>>map(ArrayList::new).collect(Collectors.toList());
+    }
+
     static List<List<Item>> buildPermutations(List<List<Item>> itemSets) {
         List<List<Item>> permutations = new ArrayList<>();
-        long price = 9999999;
+        long price = UNAVAILABLE;
         List<Item> currentPermutation = new ArrayList<>();
 
         for (int neck = 0; neck < itemSets.get(0).size(); neck++) {
@@ -274,10 +396,103 @@ public class Calculator {
         return permutations;
     }
 
+    static List<List<Item>> buildPackedPermutations(List<List<Item>> itemSets, long[] targets, int k) {
+        PackedItemSets packed = new PackedItemSets(itemSets);
+        long[][] deltas = packed.deltas;
+        long[][] prices = packed.prices;
+
+        TopBuilds top = new TopBuilds(k, PackedItemSets.SLOTS);
+        int[] build = new int[PackedItemSets.SLOTS];
+        SearchStats.Counters counters = new SearchStats.Counters();
+        BookTable books = BookTable.of(itemSets, targets);
+        SuffixTable suffixes = SuffixTable.of(packed, targets, books);
+        RingStonePairs pairs = new RingStonePairs(packed);
+        int[] matches = new int[pairs.size()];
+
+        // each level keeps its own running total, so stepping back out of a loop needs no undo
+        for (int neck = 0; neck < deltas[0].length; neck++) {
+            long neckState = deltas[0][neck];
+            long neckPrice = prices[0][neck];
+            if (!suffixes.isReachable(1, neckState)) {
+                counters.infeasiblePruned++;
+                continue;
+            }
+            counters.nodes[0]++;
+
+            for (int ear1 = 0; ear1 < deltas[1].length; ear1++) {
+                long ear1State = neckState + deltas[1][ear1];
+                if (PackedEngravings.overflows(ear1State)) {
+                    counters.overflowPruned++;
+                    continue;
+                }
+                if (!suffixes.isReachable(2, ear1State)) {
+                    counters.infeasiblePruned++;
+                    continue;
+                }
+                counters.nodes[1]++;
+                long ear1Price = neckPrice + prices[1][ear1];
+
+                for (int ear2 = packed.firstPosition(2, ear1); ear2 < deltas[2].length; ear2++) {
+                    long ear2State = ear1State + deltas[2][ear2];
+                    if (PackedEngravings.overflows(ear2State)) {
+                        counters.overflowPruned++;
+                        continue;
+                    }
+                    if (!suffixes.isReachable(3, ear2State)) {
+                        counters.infeasiblePruned++;
+                        continue;
+                    }
+                    counters.nodes[2]++;
+                    long ear2Price = ear1Price + prices[2][ear2];
+
+                    for (int ring1 = 0; ring1 < deltas[3].length; ring1++) {
+                        long ring1State = ear2State + deltas[3][ring1];
+                        if (PackedEngravings.overflows(ring1State)) {
+                            counters.overflowPruned++;
+                            continue;
+                        }
+                        if (!suffixes.isReachable(4, ring1State)) {
+                            counters.infeasiblePruned++;
+                            continue;
+                        }
+                        counters.nodes[3]++;
+                        long ring1Price = ear2Price + prices[3][ring1];
+
+                        // RING_2 and STONE in one scan, see RingStonePairs
+                        int ring2 = packed.firstPosition(4, ring1);
+                        int from = pairs.start(ring2);
+                        counters.nodes[4] += deltas[4].length - ring2;
+                        counters.nodes[5] += pairs.size() - from;
+                        counters.leaves += pairs.size() - from;
+                        int found = pairs.scan(ring1State, top.worstPrice() - books.minCost() - ring1Price, from, targets, matches);
+                        for (int match = 0; match < found; match++) {
+                            int pair = matches[match];
+                            counters.validBuilds++;
+                            build[0] = neck;
+                            build[1] = ear1;
+                            build[2] = ear2;
+                            build[3] = ring1;
+                            build[4] = pairs.ring2(pair);
+                            build[5] = pairs.stone(pair);
+                            int target = Arrays.binarySearch(targets, ring1State + pairs.deltas[pair]);
+                            top.offer(ring1Price + pairs.prices[pair] + books.cost(target), build);
+                        }
+                    }
+                }
+            }
+        }
+        counters.flush();
+        return SearchStats.ranked(top, packed);
+    }
+
     static boolean isValidCombination(List<Item> items) {
+        return isValidCombination(items, profile());
+    }
+
+    static boolean isValidCombination(List<Item> items, SolveProfile profile) {
         Map<EngravingType, Integer> engravings = mapEngravings(items);
 
-        if (BOOK_1_POINTS == 12 && BOOK_2_POINTS == 12) {
+        if (profile.getBook1Points() == 12 && profile.getBook2Points() == 12) {
             int fifteens = 3;
             int threes = 2;
 
@@ -311,16 +526,20 @@ public class Calculator {
     }
 
     static void addBooks(List<List<Item>> filteredPermutations, List<List<Item>> itemSets) {
+        addBooks(filteredPermutations, itemSets, PackedEngravings.targets(BOOK_1_POINTS, BOOK_2_POINTS));
+    }
+
+    /**
+     * Appends to every build the books its engravings need, the same ones the searches priced it with.
+     */
+    static void addBooks(List<List<Item>> filteredPermutations, List<List<Item>> itemSets, long[] targets) {
+        BookTable books = BookTable.of(itemSets, targets);
         filteredPermutations.forEach(set -> {
-            Map<EngravingType, Integer> engravings = mapEngravings(set);
-            for (EngravingType key : engravings.keySet()) {
-                if (engravings.get(key) == 3) {
-                    set.add(itemSets.get(6).stream().filter(item -> item.engraving1.engravingType.equals(key)).findFirst().get());
-                }
-                if (engravings.get(key) == 6) {
-                    set.add(itemSets.get(7).stream().filter(item -> item.engraving1.engravingType.equals(key)).findFirst().get());
-                }
+            long state = 0;
+            for (Item item : set) {
+                state += PackedEngravings.delta(item);
             }
+            set.addAll(books.books(state));
         });
     }
 
@@ -0,0 +1,105 @@
+package v2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * Adds one slot at a time to a table keyed by packed engraving state, keeping only the {@code k} cheapest partial
+ * builds per state. States past 15 on any engraving are dropped, so the table never holds more entries than there
+ * are distinct capped vectors, however many listings each slot has.
+ */
+final class DynamicProgrammingSearch {
+
+    private DynamicProgrammingSearch() {
+    }
+
+    static List<List<Item>> search(List<List<Item>> itemSets, long[] targets, int k) {
+        PackedItemSets packed = PackedItemSets.sortedByPrice(itemSets);
+        if (BranchAndBoundSearch.isEmpty(packed)) {
+            return new ArrayList<>();
+        }
+
+        SearchStats.Counters counters = new SearchStats.Counters();
+        Map<Long, TopBuilds> states = new HashMap<>();
+        TopBuilds empty = new TopBuilds(k, SLOTS);
+        empty.offer(0, new int[SLOTS]);
+        states.put(0L, empty);
+
+        int[] build = new int[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Map<Long, TopBuilds> next = new HashMap<>();
+            // the table keeps partials per state, not per position, so a mirrored pair is added in one step
+            boolean paired = slot + 1 < SLOTS && packed.mirrors[slot + 1];
+            for (Map.Entry<Long, TopBuilds> entry : states.entrySet()) {
+                long state = entry.getKey();
+                TopBuilds partials = entry.getValue();
+                for (int i = 0; i < packed.deltas[slot].length; i++) {
+                    long nextState = state + packed.deltas[slot][i];
+                    if (PackedEngravings.overflows(nextState)) {
+                        counters.overflowPruned++;
+                        continue;
+                    }
+                    counters.nodes[slot]++;
+                    if (!paired) {
+                        extend(partials, nextState, packed.prices[slot][i], slot, i, -1, next, build, k, counters);
+                        continue;
+                    }
+                    for (int j = i + 1; j < packed.deltas[slot + 1].length; j++) {
+                        long pairState = nextState + packed.deltas[slot + 1][j];
+                        if (PackedEngravings.overflows(pairState)) {
+                            counters.overflowPruned++;
+                            continue;
+                        }
+                        counters.nodes[slot + 1]++;
+                        extend(partials, pairState, packed.prices[slot][i] + packed.prices[slot + 1][j], slot, i, j, next, build, k, counters);
+                    }
+                }
+            }
+            states = next;
+            if (paired) {
+                slot++;
+            }
+        }
+
+        TopBuilds top = new TopBuilds(k, SLOTS);
+        BookTable books = BookTable.of(itemSets, targets);
+        // a leaf is a full build kept in the table, and it is valid when its state is one of the targets
+        states.values().forEach(builds -> counters.leaves += builds.size());
+        for (int t = 0; t < targets.length; t++) {
+            TopBuilds builds = states.get(targets[t]);
+            if (builds != null) {
+                counters.validBuilds += builds.size();
+                top.merge(builds, books.cost(t));
+            }
+        }
+        counters.flush();
+        return SearchStats.ranked(top, packed);
+    }
+
+    /**
+     * Offers every partial build of {@code partials} with {@code position} in {@code slot}, and {@code pairPosition}
+     * in the slot after it unless that is -1, to the entry of {@code nextState}.
+     */
+    private static void extend(TopBuilds partials, long nextState, long addedPrice, int slot, int position, int pairPosition,
+                               Map<Long, TopBuilds> next, int[] build, int k, SearchStats.Counters counters) {
+        TopBuilds nextPartials = next.computeIfAbsent(nextState, s -> new TopBuilds(k, SLOTS));
+        for (int j = 0; j < partials.size(); j++) {
+            long price = partials.price(j) + addedPrice;
+            // partials are sorted by price, the rest would not be kept either
+            if (price > nextPartials.worstPrice()) {
+                counters.boundPruned++;
+                break;
+            }
+            System.arraycopy(partials.build(j), 0, build, 0, SLOTS);
+            build[slot] = position;
+            if (pairPosition >= 0) {
+                build[slot + 1] = pairPosition;
+            }
+            nextPartials.offer(price, build);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package v2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongUnaryOperator;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * Branch-and-bound over an engraving universe and target levels given at runtime rather than by
+ * {@link EngravingType} and the book settings, for builds that choose among more engravings than the enum knows.
+ * <p>
+ * Engravings are numbered 0..n-1 and packed like {@link PackedEngravings}, so up to {@value #MAX_ENGRAVINGS} fit in
+ * a long. A valid build puts the required {@code levels} on distinct engravings and at most {@code maxOtherPoints}
+ * on each other one: 0 leaves them unused, 4 lets a negative engraving stay below level 1. That cap is below every
+ * level, so the engravings holding the levels are always the ones past it and each build belongs to exactly one
+ * subset of {@code levels.length} engravings. Rather than one search whose target permutations grow with n, each
+ * such subset is searched on its own: only the listings that keep the other engravings within the cap take part,
+ * and they are re-packed with the subset first, so its targets are the same permutations of {@code levels} whatever
+ * the universe, and every other engraving starts at {@code 15 - maxOtherPoints}, so going past the cap is the usual
+ * overflow test. All subsets share one {@link TopBuilds} holding positions into the caller's arrays, so the result
+ * and its tie order are those of a single search over everything.
+ * <p>
+ * The work still grows with the C(n, {@code levels.length}) subsets, one search each, though with a cap of 0 most of
+ * them have no listing in some slot and cost only the check that finds that out.
+ * <p>
+ * Most subsets cannot meet the targets at all, and with nothing found yet the price bound cannot cut them short.
+ * Each subset therefore also collects the states its last {@value #SUFFIX_SLOTS} slots can add, and a prefix is
+ * only extended into them when one of those states completes it to a target.
+ */
+final class GenericSolver {
+
+    static final int MAX_ENGRAVINGS = Long.SIZE / PackedEngravings.BITS;
+    private static final int SUFFIX_SLOTS = 3;
+
+    private final int engravings;
+    private final int[] levels;
+    private final int maxOtherPoints;
+    private final long[] targets;
+    // over every engraving, and over the fields of a subset's own engravings
+    private final long overflowMask;
+    private final long levelOverflowMask;
+    private final long levelFields;
+    // what a subset's state starts at: 15 - maxOtherPoints on every engraving without a level
+    private final long start;
+    // universe state reaching the levels -> what it costs on top of its listings
+    private LongUnaryOperator targetCost = state -> 0;
+
+    GenericSolver(int engravings, int[] levels) {
+        this(engravings, levels, 0);
+    }
+
+    /**
+     * @param maxOtherPoints how many points each engraving without a level may end up with, below every level
+     */
+    GenericSolver(int engravings, int[] levels, int maxOtherPoints) {
+        if (engravings < 1 || engravings > MAX_ENGRAVINGS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_ENGRAVINGS + " engravings are supported, got " + engravings);
+        }
+        if (levels.length > engravings) {
+            throw new IllegalArgumentException(levels.length + " levels do not fit " + engravings + " engravings");
+        }
+        for (int level : levels) {
+            if (level < 1 || level > PackedEngravings.MAX_POINTS) {
+                throw new IllegalArgumentException("Levels go from 1 to " + PackedEngravings.MAX_POINTS + ", got " + level);
+            }
+        }
+        int minLevel = Arrays.stream(levels).min().orElse(PackedEngravings.MAX_POINTS + 1);
+        if (maxOtherPoints < 0 || maxOtherPoints >= minLevel) {
+            throw new IllegalArgumentException("Other engravings may have from 0 to " + (minLevel - 1) + " points, got " + maxOtherPoints);
+        }
+        this.engravings = engravings;
+        this.levels = levels.clone();
+        this.maxOtherPoints = maxOtherPoints;
+        this.targets = PackedEngravings.targets(levels);
+        this.overflowMask = PackedEngravings.overflowMask(engravings);
+        this.levelOverflowMask = PackedEngravings.overflowMask(levels.length);
+        this.levelFields = (1L << levels.length * PackedEngravings.BITS) - 1;
+        long start = 0;
+        for (int field = levels.length; field < engravings; field++) {
+            start += (long) (PackedEngravings.MAX_POINTS - maxOtherPoints) << (field * PackedEngravings.BITS);
+        }
+        this.start = start;
+    }
+
+    /**
+     * {@link Solver} over the enum's engravings, taking the levels from the packed targets.
+     */
+    static List<List<Item>> search(List<List<Item>> itemSets, long[] targets, int k) {
+        PackedItemSets packed = PackedItemSets.sortedByPrice(itemSets);
+        if (targets.length == 0 || BranchAndBoundSearch.isEmpty(packed)) {
+            return new ArrayList<>();
+        }
+        int engravings = EngravingType.values().length;
+        List<Integer> levels = new ArrayList<>();
+        for (int i = 0; i < engravings; i++) {
+            int level = PackedEngravings.points(targets[0], i);
+            if (level > 0) {
+                levels.add(level);
+            }
+        }
+        GenericSolver solver = new GenericSolver(engravings, levels.stream().mapToInt(Integer::intValue).toArray());
+        BookTable books = BookTable.of(itemSets, targets);
+        solver.targetCost(books::costOf);
+        return SearchStats.ranked(solver.solve(packed.deltas, packed.prices, packed.mirrors, k), packed);
+    }
+
+    /**
+     * Adds {@code cost} of the final state, e.g. the books it needs, to the price of every build.
+     */
+    void targetCost(LongUnaryOperator cost) {
+        this.targetCost = cost;
+    }
+
+    /**
+     * Packs a listing's engravings, given as indices into the universe; {@code engraving2} is -1 for none.
+     */
+    static long delta(int engraving1, int points1, int engraving2, int points2) {
+        long delta = (long) points1 << (engraving1 * PackedEngravings.BITS);
+        return engraving2 < 0 ? delta : delta + ((long) points2 << (engraving2 * PackedEngravings.BITS));
+    }
+
+    /**
+     * The {@code k} cheapest valid builds as positions into {@code deltas}/{@code prices}, whose rows must each be
+     * in ascending price order like {@link PackedItemSets#sortedByPrice(List)}. A slot marked in {@code mirrors}
+     * only takes positions past the one in the slot before it, see {@link PackedItemSets#firstPosition(int, int)}.
+     */
+    TopBuilds solve(long[][] deltas, long[][] prices, boolean[] mirrors, int k) {
+        int slots = deltas.length;
+        int[][] used = new int[slots][];
+        for (int slot = 0; slot < slots; slot++) {
+            used[slot] = new int[deltas[slot].length];
+            for (int i = 0; i < deltas[slot].length; i++) {
+                used[slot][i] = engravingsOf(deltas[slot][i]);
+            }
+        }
+
+        Subset subset = new Subset(slots, mirrors, new TopBuilds(k, slots));
+        for (int mask = 0; mask < 1 << engravings; mask++) {
+            if (Integer.bitCount(mask) == levels.length && subset.load(mask, deltas, prices, used)) {
+                subset.visit(0, start, 0);
+            }
+        }
+        subset.counters.flush();
+        return subset.top;
+    }
+
+    private int engravingsOf(long delta) {
+        int mask = 0;
+        for (int i = 0; i < engravings; i++) {
+            if (PackedEngravings.points(delta, i) != 0) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * The listings of one engraving subset, re-packed over its own fields, and the search through them.
+     */
+    private final class Subset {
+
+        private final int slots;
+        private final boolean[] mirrors;
+        private final TopBuilds top;
+        private final SearchStats.Counters counters = new SearchStats.Counters();
+        private final long[][] deltas;
+        private final long[][] prices;
+        // position here -> position in the caller's arrays
+        private final int[][] positions;
+        private final int[] sizes;
+        private final long[] minRemaining;
+        private final int[] local = new int[engravings];
+        // targetCosts[i] = targetCost of targets[i] put back on this subset's engravings
+        private final long[] targetCosts = new long[targets.length];
+        private final int[] build;
+        private final int split;
+        // sorted states slots split.. can add up to
+        private long[] suffixStates;
+
+        Subset(int slots, boolean[] mirrors, TopBuilds top) {
+            this.slots = slots;
+            this.mirrors = mirrors;
+            this.top = top;
+            this.deltas = new long[slots][];
+            this.prices = new long[slots][];
+            this.positions = new int[slots][];
+            this.sizes = new int[slots];
+            this.minRemaining = new long[slots + 1];
+            this.build = new int[slots];
+            this.split = Math.max(0, slots - SUFFIX_SLOTS);
+        }
+
+        /**
+         * @return false when some slot has no listing inside the subset
+         */
+        boolean load(int mask, long[][] allDeltas, long[][] allPrices, int[][] used) {
+            for (int i = 0, field = 0, other = levels.length; i < engravings; i++) {
+                local[i] = (mask & 1 << i) != 0 ? field++ : other++;
+            }
+            for (int slot = 0; slot < slots; slot++) {
+                if (deltas[slot] == null) {
+                    deltas[slot] = new long[allDeltas[slot].length];
+                    prices[slot] = new long[allDeltas[slot].length];
+                    positions[slot] = new int[allDeltas[slot].length];
+                }
+                int size = 0;
+                for (int i = 0; i < allDeltas[slot].length; i++) {
+                    if (maxOtherPoints == 0 && (used[slot][i] & ~mask) != 0) {
+                        continue;
+                    }
+                    long projected = project(allDeltas[slot][i]);
+                    if (((start + projected) & overflowMask) == 0) {
+                        deltas[slot][size] = projected;
+                        prices[slot][size] = allPrices[slot][i];
+                        positions[slot][size++] = i;
+                    }
+                }
+                if (size == 0) {
+                    return false;
+                }
+                sizes[slot] = size;
+            }
+            minRemaining[slots] = Long.MAX_VALUE;
+            for (int t = 0; t < targets.length; t++) {
+                targetCosts[t] = targetCost.applyAsLong(unproject(targets[t]));
+                minRemaining[slots] = Math.min(minRemaining[slots], targetCosts[t]);
+            }
+            for (int slot = slots - 1; slot >= 0; slot--) {
+                minRemaining[slot] = minRemaining[slot + 1] + prices[slot][0];
+            }
+            Set<Long> states = new HashSet<>();
+            states.add(0L);
+            for (int slot = slots - 1; slot >= split; slot--) {
+                Set<Long> next = new HashSet<>();
+                for (long state : states) {
+                    for (int i = 0; i < sizes[slot]; i++) {
+                        long added = state + deltas[slot][i];
+                        if ((added & overflowMask) == 0) {
+                            next.add(added);
+                        }
+                    }
+                }
+                states = next;
+            }
+            // only the subset's own engravings have to meet a target
+            suffixStates = states.stream().mapToLong(state -> state & levelFields).distinct().sorted().toArray();
+            return true;
+        }
+
+        void visit(int slot, long state, long price) {
+            if (slot == split && !isCompletable(state)) {
+                counters.infeasiblePruned++;
+                return;
+            }
+            long rest = minRemaining[slot + 1];
+            for (int i = 0; i < sizes[slot]; i++) {
+                long nextPrice = price + prices[slot][i];
+                long bound = nextPrice + rest;
+                build[slot] = positions[slot][i];
+                if (mirrors[slot] && build[slot] <= build[slot - 1]) {
+                    continue;
+                }
+                // positions only grow with i, so once a prefix ranks behind the worst build at its price, all later do
+                if (bound > top.worstPrice() || bound == top.worstPrice() && !top.mayTieAhead(build, slot + 1)) {
+                    counters.boundPruned++;
+                    break;
+                }
+                long next = state + deltas[slot][i];
+                if ((next & overflowMask) != 0) {
+                    counters.overflowPruned++;
+                    continue;
+                }
+                // slots past the last of a real build count as that one
+                counters.nodes[Math.min(slot, SLOTS - 1)]++;
+                if (slot == slots - 1) {
+                    counters.leaves++;
+                    int target = Arrays.binarySearch(targets, next & levelFields);
+                    if (target >= 0) {
+                        counters.validBuilds++;
+                        top.offer(nextPrice + targetCosts[target], build);
+                    }
+                } else {
+                    visit(slot + 1, next, nextPrice);
+                }
+            }
+        }
+
+        private boolean isCompletable(long state) {
+            for (long target : targets) {
+                // borrow-free target - state, see MeetInTheMiddleSearch.remainder
+                long difference = (target | levelOverflowMask) - (state & levelFields);
+                if ((difference & levelOverflowMask) == levelOverflowMask
+                        && Arrays.binarySearch(suffixStates, difference & ~levelOverflowMask) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long unproject(long state) {
+            long unprojected = 0;
+            for (int i = 0; i < engravings; i++) {
+                if (local[i] < levels.length) {
+                    unprojected += (long) PackedEngravings.points(state, local[i]) << (i * PackedEngravings.BITS);
+                }
+            }
+            return unprojected;
+        }
+
+        private long project(long delta) {
+            long projected = 0;
+            for (int i = 0; i < engravings; i++) {
+                int points = PackedEngravings.points(delta, i);
+                if (points != 0) {
+                    projected += (long) points << (local[i] * PackedEngravings.BITS);
+                }
+            }
+            return projected;
+        }
+    }
+}
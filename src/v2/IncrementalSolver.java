@@ -0,0 +1,218 @@
+package v2;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import v2.SearchStats.Phase;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * {@link BranchAndBoundSearch} that remembers its last answer and, when it is asked again about the same listings
+ * with some prices changed, only searches what the changes can affect:
+ * <ul>
+ * <li>if no kept build uses a changed listing and no price went down, the kept builds are still the answer;</li>
+ * <li>if no kept build uses a changed listing, only builds with a cheaper listing can enter, so only those are
+ * searched, starting from the previous builds as the bound;</li>
+ * <li>anything else, listings that were added to or removed from the {@link ListingFilter reduced} lists, or a
+ * changed book price, is searched from scratch.</li>
+ * </ul>
+ */
+@Slf4j
+final class IncrementalSolver implements Solver {
+
+    private List<List<Item>> previousItemSets;
+    private long[] previousTargets;
+    private int previousK;
+    // kept builds as indices into previousItemSets, cheapest first
+    private long[] previousPrices = new long[0];
+    private int[][] previousBuilds = new int[0][];
+
+    @Override
+    public List<List<Item>> solve(List<List<Item>> listings, long[] targets, int k) {
+        // the filter keeps listings in their original order, so unchanged listings stay comparable by position
+        List<List<Item>> itemSets = ListingFilter.reduce(listings, k);
+        PackedItemSets packed = PackedItemSets.sortedByPrice(itemSets);
+        if (BranchAndBoundSearch.isEmpty(packed)) {
+            remember(itemSets, targets, k, packed, new TopBuilds(k, SLOTS));
+            return new ArrayList<>();
+        }
+
+        BranchAndBoundSearch search = new BranchAndBoundSearch(packed, targets, k, new AtomicLong(Long.MAX_VALUE));
+        boolean[][] decreased = new boolean[SLOTS][];
+        int changes = diff(itemSets, targets, k, packed, decreased);
+
+        if (changes < 0 || usesChangedListing(itemSets)) {
+            log.info("{} Searching all builds", LocalDateTime.now());
+            search.visitWith(-1, 0, null);
+        } else {
+            int[][] positions = positions(packed);
+            int[] build = new int[SLOTS];
+            for (int i = 0; i < previousBuilds.length; i++) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    build[slot] = positions[slot][previousBuilds[i][slot]];
+                }
+                search.seed(previousPrices[i], build);
+            }
+
+            // every build with a cheaper listing is searched once, under the first such listing it contains
+            boolean[][] excluded = new boolean[SLOTS][];
+            int searched = 0;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                excluded[slot] = new boolean[decreased[slot].length];
+            }
+            for (int slot = 0; slot < SLOTS; slot++) {
+                for (int position = 0; position < decreased[slot].length; position++) {
+                    if (decreased[slot][position]) {
+                        search.visitWith(slot, position, excluded);
+                        excluded[slot][position] = true;
+                        searched++;
+                    }
+                }
+            }
+            log.info("{} {} listings changed, searched builds with the {} that got cheaper", LocalDateTime.now(), changes, searched);
+        }
+
+        remember(itemSets, targets, k, packed, search.top());
+        return SearchStats.ranked(search.top(), packed);
+    }
+
+    /**
+     * Re-solves with the book and {@link Calculator#TOP_K} settings whenever {@link Calculator#FILE_NAME} changes,
+     * logging the new builds each time.
+     */
+    @SneakyThrows
+    static void watch() {
+        IncrementalSolver solver = new IncrementalSolver();
+        Path file = Paths.get(Calculator.FILE_NAME).toAbsolutePath();
+        solveAndLog(solver);
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            log.info("{} Watching {}", LocalDateTime.now(), file);
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= file.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    try {
+                        solveAndLog(solver);
+                    } catch (Exception e) {
+                        // most likely caught the scraper half way through writing or renaming the file, the next event
+                        // retries; Exception because load and getPrices rethrow IOExceptions such as NoSuchFileException
+                        log.warn("{} Could not re-solve {}", LocalDateTime.now(), file, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void solveAndLog(IncrementalSolver solver) {
+        SearchStats.STATS.reset();
+        long start = System.nanoTime();
+        List<List<Item>> itemSets = SearchStats.time(Phase.ITEM_SETS, () -> Calculator.getItemSets());
+        SearchStats.time(Phase.LOAD, () -> Calculator.getPrices(itemSets));
+        List<List<Item>> permutations = SearchStats.time(Phase.SEARCH,
+                () -> solver.solve(itemSets, PackedEngravings.targets(Calculator.BOOK_1_POINTS, Calculator.BOOK_2_POINTS), Calculator.TOP_K));
+        SearchStats.time(Phase.BOOKS, () -> Calculator.addBooks(permutations, itemSets));
+        log.info("{} Re-solved in {} ms", LocalDateTime.now(), (System.nanoTime() - start) / 1_000_000);
+        Calculator.logPermutations(permutations);
+        log.info("{} Stats {}", LocalDateTime.now(), SearchStats.STATS.getSummary());
+    }
+
+    /**
+     * Number of listings whose price changed since the previous call, marking the ones that got cheaper by their
+     * position in {@code packed}; -1 if the previous answer cannot be reused at all.
+     */
+    private int diff(List<List<Item>> itemSets, long[] targets, int k, PackedItemSets packed, boolean[][] decreased) {
+        if (previousItemSets == null || k != previousK || !Arrays.equals(targets, previousTargets)) {
+            return -1;
+        }
+        int[][] positions = positions(packed);
+        int changes = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            ListingColumns items = ListingColumns.of(itemSets.get(slot));
+            ListingColumns previousItems = ListingColumns.of(previousItemSets.get(slot));
+            if (items.size() != previousItems.size()) {
+                return -1;
+            }
+            decreased[slot] = new boolean[items.size()];
+            for (int i = 0; i < items.size(); i++) {
+                if (!items.sameEngravings(i, previousItems, i)) {
+                    return -1;
+                }
+                if (items.price(i) != previousItems.price(i)) {
+                    changes++;
+                    decreased[slot][positions[slot][i]] = items.price(i) < previousItems.price(i);
+                }
+            }
+        }
+        // every kept price includes books, so a book price change can reorder any of them
+        for (ItemType books : new ItemType[]{ItemType.BOOKS_1, ItemType.BOOKS_2}) {
+            List<Item> items = itemSets.get(books.ordinal());
+            List<Item> previousItems = previousItemSets.get(books.ordinal());
+            if (items.size() != previousItems.size()) {
+                return -1;
+            }
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).price != previousItems.get(i).price) {
+                    return -1;
+                }
+            }
+        }
+        return changes;
+    }
+
+    private boolean usesChangedListing(List<List<Item>> itemSets) {
+        for (int[] build : previousBuilds) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (ListingColumns.of(itemSets.get(slot)).price(build[slot]) != ListingColumns.of(previousItemSets.get(slot)).price(build[slot])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void remember(List<List<Item>> itemSets, long[] targets, int k, PackedItemSets packed, TopBuilds top) {
+        previousItemSets = itemSets;
+        previousTargets = targets;
+        previousK = k;
+        previousPrices = new long[top.size()];
+        previousBuilds = new int[top.size()][SLOTS];
+        for (int rank = 0; rank < top.size(); rank++) {
+            previousPrices[rank] = top.price(rank);
+            int[] build = top.build(rank);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                previousBuilds[rank][slot] = packed.itemIndices[slot][build[slot]];
+            }
+        }
+    }
+
+    // index into itemSets -> position in packed
+    private static int[][] positions(PackedItemSets packed) {
+        int[][] positions = new int[SLOTS][];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            positions[slot] = new int[packed.itemIndices[slot].length];
+            for (int position = 0; position < positions[slot].length; position++) {
+                positions[slot][packed.itemIndices[slot][position]] = position;
+            }
+        }
+        return positions;
+    }
+}
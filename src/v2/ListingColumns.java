@@ -0,0 +1,143 @@
+package v2;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * One slot's listings stored as parallel primitive arrays instead of one {@link Item} per listing: the packed
+ * {@link PackedEngravings} delta, the price, and the two engravings as ordinal and points bytes so an item can be
+ * given back exactly as it was listed.
+ * <p>
+ * It is a read-only {@code List<Item>}, so it goes anywhere an item list does, but {@link #get} builds a new
+ * {@link Item} on every call and changing that item changes nothing here. {@link PackedItemSets}, {@link
+ * ListingFilter} and {@link #indexOf} read the columns directly, so a snapshot loaded by {@link
+ * Calculator#getPrices(List, PriceSnapshot)} only turns into items for the builds that get reported.
+ */
+final class ListingColumns extends AbstractList<Item> implements RandomAccess {
+
+    private static final int NONE = 0xFF;
+
+    final ItemType itemType;
+    private long[] deltas;
+    private long[] prices;
+    // engraving1 ordinal, engraving1 points, engraving2 ordinal, engraving2 points; one byte each, NONE for null
+    private int[] engravings;
+    private int size;
+
+    ListingColumns(ItemType itemType, int capacity) {
+        this.itemType = itemType;
+        deltas = new long[Math.max(capacity, 4)];
+        prices = new long[deltas.length];
+        engravings = new int[deltas.length];
+    }
+
+    private ListingColumns(ItemType itemType, long[] deltas, long[] prices, int[] engravings, int size) {
+        this.itemType = itemType;
+        this.deltas = deltas;
+        this.prices = prices;
+        this.engravings = engravings;
+        this.size = size;
+    }
+
+    /**
+     * {@code items} itself if it already is one, otherwise a copy of it; every item must be of the same type.
+     */
+    static ListingColumns of(List<Item> items) {
+        if (items instanceof ListingColumns) {
+            return (ListingColumns) items;
+        }
+        ListingColumns columns = new ListingColumns(items.isEmpty() ? null : items.get(0).itemType, items.size());
+        for (Item item : items) {
+            columns.add(item.engraving1, item.engraving2, item.price);
+        }
+        return columns;
+    }
+
+    void add(Engraving engraving1, Engraving engraving2, long price) {
+        if (size == deltas.length) {
+            deltas = Arrays.copyOf(deltas, size * 2);
+            prices = Arrays.copyOf(prices, size * 2);
+            engravings = Arrays.copyOf(engravings, size * 2);
+        }
+        deltas[size] = PackedEngravings.delta(engraving1) + PackedEngravings.delta(engraving2);
+        prices[size] = price;
+        engravings[size] = encode(engraving1) << 16 | encode(engraving2);
+        size++;
+    }
+
+    long delta(int i) {
+        return deltas[i];
+    }
+
+    long price(int i) {
+        return prices[i];
+    }
+
+    boolean sameEngravings(int i, ListingColumns other, int j) {
+        return engravings[i] == other.engravings[j];
+    }
+
+    /**
+     * The listings marked in {@code keep}, in the same order.
+     */
+    ListingColumns select(boolean[] keep) {
+        int kept = 0;
+        for (boolean k : keep) {
+            kept += k ? 1 : 0;
+        }
+        ListingColumns selected = new ListingColumns(itemType, kept);
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                selected.deltas[selected.size] = deltas[i];
+                selected.prices[selected.size] = prices[i];
+                selected.engravings[selected.size++] = engravings[i];
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * The same listings at other prices, one per listing; the other columns are shared.
+     */
+    ListingColumns withPrices(long[] newPrices) {
+        return new ListingColumns(itemType, deltas, Arrays.copyOf(newPrices, deltas.length), engravings, size);
+    }
+
+    @Override
+    public Item get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return new Item(itemType, decode(engravings[i] >>> 16), decode(engravings[i] & 0xFFFF), prices[i]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Item) || ((Item) o).itemType != itemType) {
+            return -1;
+        }
+        Item item = (Item) o;
+        int key = encode(item.engraving1) << 16 | encode(item.engraving2);
+        for (int i = 0; i < size; i++) {
+            if (engravings[i] == key && prices[i] == item.price) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int encode(Engraving engraving) {
+        return engraving == null ? NONE << 8 | NONE : engraving.engravingType.ordinal() << 8 | engraving.points;
+    }
+
+    private static Engraving decode(int engraving) {
+        return engraving >>> 8 == NONE ? null : new Engraving(EngravingType.values()[engraving >>> 8], engraving & 0xFF);
+    }
+}
@@ -0,0 +1,69 @@
+package v2;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * Cuts every slot down to the listings a top-{@code k} search can actually use before it starts.
+ * <p>
+ * Unavailable listings are dropped, and of several listings with the same engravings only the {@code k} cheapest
+ * are kept: a build using a dearer one can swap in any of those {@code k} and get cheaper, so it never makes the
+ * top {@code k}. Listings with different engravings never dominate each other, because the targets are exact
+ * levels and a point more or less is as likely to break a build as to complete it.
+ * <p>
+ * A mirrored EARRING_2 or RING_2 and the slot before it keep {@code k + 1} instead: a build there cannot use one
+ * listing twice (see {@link PackedItemSets#firstPosition}), so a build that needs two listings with the same
+ * engravings takes two of them, and the swap argument needs {@code k} left over besides the one in the other slot.
+ */
+@Slf4j
+final class ListingFilter {
+
+    private ListingFilter() {
+    }
+
+    /**
+     * A copy of {@code itemSets} with NECKLACE through STONE reduced to {@link ListingColumns}, keeping the
+     * remaining listings in their original order. The book lists are shared, not copied.
+     */
+    static List<List<Item>> reduce(List<List<Item>> itemSets, int k) {
+        List<List<Item>> reduced = new ArrayList<>(itemSets);
+        int before = 0;
+        int after = 0;
+        boolean[] mirrors = new PackedItemSets(itemSets).mirrors;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            ListingColumns items = ListingColumns.of(itemSets.get(slot));
+            // both slots of a mirrored pair keep the same listings, so they are still mirrored afterwards
+            int limit = mirrors[slot] || slot + 1 < SLOTS && mirrors[slot + 1] ? k + 1 : k;
+            int[] order = IntStream.range(0, items.size()).boxed()
+                    .sorted(Comparator.<Integer>comparingLong(items::delta).thenComparingLong(items::price))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            boolean[] keep = new boolean[items.size()];
+            int kept = 0;
+            for (int i = 0; i < order.length; i++) {
+                if (i > 0 && items.delta(order[i]) != items.delta(order[i - 1])) {
+                    kept = 0;
+                }
+                if (kept < limit && items.price(order[i]) < Calculator.UNAVAILABLE) {
+                    keep[order[i]] = true;
+                    kept++;
+                }
+            }
+
+            ListingColumns listings = items.select(keep);
+            reduced.set(slot, listings);
+            before += items.size();
+            after += listings.size();
+        }
+        log.info("{} Reduced {} listings to {}", LocalDateTime.now(), before, after);
+        return reduced;
+    }
+}
@@ -0,0 +1,120 @@
+package v2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enumerates {NECKLACE, EARRING_1, EARRING_2} and {RING_1, RING_2, STONE} separately, keeps the {@code k} cheapest
+ * entries of each half per packed engraving vector, and joins every left vector with the right vectors that
+ * complete it to one of the target states. Instead of one visit per full build this costs one visit per half
+ * build plus a hash lookup per (left vector, target) pair.
+ */
+final class MeetInTheMiddleSearch {
+
+    private static final int HALF = PackedItemSets.SLOTS / 2;
+
+    private MeetInTheMiddleSearch() {
+    }
+
+    static List<List<Item>> search(List<List<Item>> itemSets, long[] targets, int k) {
+        PackedItemSets packed = PackedItemSets.sortedByPrice(itemSets);
+        if (BranchAndBoundSearch.isEmpty(packed)) {
+            return new ArrayList<>();
+        }
+
+        SearchStats.Counters counters = new SearchStats.Counters();
+        Map<Long, TopBuilds> left = enumerate(packed, 0, HALF, k, counters);
+        Map<Long, TopBuilds> right = enumerate(packed, HALF, HALF, k, counters);
+
+        TopBuilds top = new TopBuilds(k, PackedItemSets.SLOTS);
+        int[] build = new int[PackedItemSets.SLOTS];
+        BookTable books = BookTable.of(itemSets, targets);
+        for (Map.Entry<Long, TopBuilds> leftEntry : left.entrySet()) {
+            long leftState = leftEntry.getKey();
+            for (int t = 0; t < targets.length; t++) {
+                long rightState = remainder(targets[t], leftState);
+                TopBuilds rightBuilds = rightState < 0 ? null : right.get(rightState);
+                if (rightBuilds != null) {
+                    join(leftEntry.getValue(), rightBuilds, books.cost(t), top, build, counters);
+                }
+            }
+        }
+        counters.flush();
+        return SearchStats.ranked(top, packed);
+    }
+
+    /**
+     * The state that added to {@code state} gives {@code target}, or -1 when some engraving of {@code state} is
+     * already past the target. Adding the overflow bit to every target field first means a field never borrows
+     * from its neighbour, and the bit is still set afterwards exactly when that field did not go negative.
+     */
+    static long remainder(long target, long state) {
+        long difference = (target | PackedEngravings.OVERFLOW_MASK) - state;
+        if ((difference & PackedEngravings.OVERFLOW_MASK) != PackedEngravings.OVERFLOW_MASK) {
+            return -1;
+        }
+        return difference & ~PackedEngravings.OVERFLOW_MASK;
+    }
+
+    /**
+     * The {@code k} cheapest builds of {@code slots} consecutive slots from {@code firstSlot} per packed state,
+     * counting the listings placed as nodes of their slot.
+     */
+    static Map<Long, TopBuilds> enumerate(PackedItemSets packed, int firstSlot, int slots, int k, SearchStats.Counters counters) {
+        Map<Long, TopBuilds> half = new HashMap<>();
+        enumerate(packed, firstSlot, 0, slots, 0, 0, new int[slots], half, k, counters);
+        return half;
+    }
+
+    private static void enumerate(PackedItemSets packed, int firstSlot, int depth, int slots, long state, long price,
+                                  int[] build, Map<Long, TopBuilds> half, int k, SearchStats.Counters counters) {
+        if (depth == slots) {
+            half.computeIfAbsent(state, s -> new TopBuilds(k, slots)).offer(price, build);
+            return;
+        }
+        int slot = firstSlot + depth;
+        long[] deltas = packed.deltas[slot];
+        long[] prices = packed.prices[slot];
+        // both slots of a mirrored pair have to be in the same half for this to see them
+        for (int i = depth == 0 ? 0 : packed.firstPosition(slot, build[depth - 1]); i < deltas.length; i++) {
+            long next = state + deltas[i];
+            if (PackedEngravings.overflows(next)) {
+                counters.overflowPruned++;
+                continue;
+            }
+            counters.nodes[slot]++;
+            build[depth] = i;
+            enumerate(packed, firstSlot, depth + 1, slots, next, price + prices[i], build, half, k, counters);
+        }
+    }
+
+    /**
+     * Offers every pairing of a {@code left} and a {@code right} build to {@code top} at their price plus
+     * {@code books}, the left one filling the first slots of {@code build}. Every pairing reaches a target, so each
+     * one priced is a leaf and each one offered a valid build.
+     */
+    static void join(TopBuilds left, TopBuilds right, long books, TopBuilds top, int[] build, SearchStats.Counters counters) {
+        int leftWidth = left.width();
+        for (int i = 0; i < left.size(); i++) {
+            // both halves are sorted by price, so once the cheapest pairing is out of reach the rest are too
+            if (left.price(i) + right.price(0) + books > top.worstPrice()) {
+                counters.boundPruned++;
+                return;
+            }
+            System.arraycopy(left.build(i), 0, build, 0, leftWidth);
+            for (int j = 0; j < right.size(); j++) {
+                long price = left.price(i) + right.price(j) + books;
+                counters.leaves++;
+                if (price > top.worstPrice()) {
+                    counters.boundPruned++;
+                    break;
+                }
+                counters.validBuilds++;
+                System.arraycopy(right.build(j), 0, build, leftWidth, right.width());
+                top.offer(price, build);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package v2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Engraving totals packed into a single long, {@link #BITS} bits per {@link EngravingType} ordinal.
+ * <p>
+ * A total never exceeds 15 before an item is added and no item adds more than 7 points to one engraving,
+ * so a field that goes past 15 only ever sets its own top bit and never carries into its neighbour.
+ * That makes adding an item a plain {@code +} and the {@code <= 15} check a single mask test.
+ */
+final class PackedEngravings {
+
+    static final int BITS = 5;
+    static final long FIELD_MASK = (1L << BITS) - 1;
+    static final int MAX_POINTS = 15;
+    static final long OVERFLOW_MASK = overflowMask(EngravingType.values().length);
+
+    private PackedEngravings() {
+    }
+
+    static long delta(Item item) {
+        return delta(item.engraving1) + delta(item.engraving2);
+    }
+
+    static long delta(Engraving engraving) {
+        if (engraving == null) {
+            return 0;
+        }
+        return (long) engraving.points << (engraving.engravingType.ordinal() * BITS);
+    }
+
+    static int points(long state, int ordinal) {
+        return (int) ((state >>> (ordinal * BITS)) & FIELD_MASK);
+    }
+
+    static boolean overflows(long state) {
+        return (state & OVERFLOW_MASK) != 0;
+    }
+
+    static long overflowMask(int engravingCount) {
+        long mask = 0;
+        for (int i = 0; i < engravingCount; i++) {
+            mask |= (long) (MAX_POINTS + 1) << (i * BITS);
+        }
+        return mask;
+    }
+
+    /**
+     * Every packed state that {@link Calculator#isValidCombination(List)} accepts for the given books, sorted
+     * so a leaf can be checked with a binary search.
+     */
+    static long[] targets(int book1Points, int book2Points) {
+        if (book1Points == 12 && book2Points == 12) {
+            return targets(new int[]{15, 15, 15, 3, 3});
+        }
+        return targets(new int[]{15, 15, 15, 6, 3});
+    }
+
+    static long[] targets(int[] levels) {
+        List<Long> states = new ArrayList<>();
+        collectTargets(levels.clone(), 0, states);
+        return states.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+    }
+
+    static boolean matches(long state, long[] targets) {
+        return Arrays.binarySearch(targets, state) >= 0;
+    }
+
+    private static void collectTargets(int[] levels, int position, List<Long> states) {
+        if (position == levels.length) {
+            long state = 0;
+            for (int i = 0; i < levels.length; i++) {
+                state |= (long) levels[i] << (i * BITS);
+            }
+            states.add(state);
+            return;
+        }
+        for (int i = position; i < levels.length; i++) {
+            swap(levels, position, i);
+            collectTargets(levels, position + 1, states);
+            swap(levels, position, i);
+        }
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,79 @@
+package v2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The six accessory slots of an item set pre-encoded as {@link PackedEngravings} deltas and raw prices, so the
+ * search never touches an {@link Item} until it has a combination worth reporting.
+ */
+final class PackedItemSets {
+
+    static final int SLOTS = 6;
+
+    final List<List<Item>> itemSets;
+    final long[][] deltas = new long[SLOTS][];
+    final long[][] prices = new long[SLOTS][];
+    // position in the packed arrays -> index into itemSets
+    final int[][] itemIndices = new int[SLOTS][];
+    // mirrors[slot]: the slot holds the same listings as slot - 1, see firstPosition
+    final boolean[] mirrors = new boolean[SLOTS];
+
+    PackedItemSets(List<List<Item>> itemSets) {
+        this(itemSets, false);
+    }
+
+    private PackedItemSets(List<List<Item>> itemSets, boolean byPrice) {
+        this.itemSets = itemSets;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            ListingColumns items = ListingColumns.of(itemSets.get(slot));
+            IntStream order = IntStream.range(0, items.size());
+            if (byPrice) {
+                order = order.boxed().sorted(Comparator.comparingLong(items::price)).mapToInt(Integer::intValue);
+            }
+            itemIndices[slot] = order.toArray();
+            deltas[slot] = new long[items.size()];
+            prices[slot] = new long[items.size()];
+            for (int i = 0; i < items.size(); i++) {
+                deltas[slot][i] = items.delta(itemIndices[slot][i]);
+                prices[slot][i] = items.price(itemIndices[slot][i]);
+            }
+        }
+        for (ItemType second : new ItemType[]{ItemType.EARRING_2, ItemType.RING_2}) {
+            int slot = second.ordinal();
+            mirrors[slot] = Arrays.equals(deltas[slot], deltas[slot - 1]) && Arrays.equals(prices[slot], prices[slot - 1]);
+        }
+    }
+
+    /**
+     * First position worth trying in {@code slot} when {@code previous} is taken in the slot before it.
+     * <p>
+     * EARRING_2 and RING_2 list the same listings, in the same order, as the slot before them when {@link
+     * Calculator#getPrices(List)} fills both from the same price rows, as it does with {@link
+     * Calculator#INTERCHANGEABLE_PAIRS}, or when the price file simply lists both alike. A build and its copy with the two
+     * slots swapped then cost the same and reach the same state, so the searches only take builds whose position
+     * in the second slot is past the one in the first. That also keeps one listing from being bought twice.
+     */
+    int firstPosition(int slot, int previous) {
+        return mirrors[slot] ? previous + 1 : 0;
+    }
+
+    /**
+     * Same slots with every list in ascending price order, so a search that walks them finds cheap builds first
+     * and can stop a loop as soon as one listing is too expensive.
+     */
+    static PackedItemSets sortedByPrice(List<List<Item>> itemSets) {
+        return new PackedItemSets(itemSets, true);
+    }
+
+    List<Item> combination(int... indices) {
+        List<Item> combination = new ArrayList<>(SLOTS);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            combination.add(itemSets.get(slot).get(itemIndices[slot][indices[slot]]));
+        }
+        return combination;
+    }
+}
@@ -0,0 +1,104 @@
+package v2;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BranchAndBoundSearch} split into fork/join tasks over the NECKLACE x EARRING_1 pairs. Every task has its own
+ * engraving accumulator and top-K, and all of them prune against one shared bound, so a worker benefits as soon as
+ * any other one finds a cheap build. The merged top-K is the same as the sequential search's.
+ */
+@Slf4j
+final class ParallelSearch extends RecursiveTask<TopBuilds> {
+
+    // below this many (necklace, earring) pairs a task stops splitting and searches them itself
+    private static final int PAIRS_PER_TASK = 8;
+
+    private final PackedItemSets packed;
+    private final SuffixTable suffixes;
+    private final int k;
+    private final AtomicLong sharedBound;
+    private final int from;
+    private final int to;
+
+    private ParallelSearch(PackedItemSets packed, SuffixTable suffixes, int k, AtomicLong sharedBound, int from, int to) {
+        this.packed = packed;
+        this.suffixes = suffixes;
+        this.k = k;
+        this.sharedBound = sharedBound;
+        this.from = from;
+        this.to = to;
+    }
+
+    static List<List<Item>> search(List<List<Item>> itemSets, long[] targets, int k, int parallelism) {
+        PackedItemSets packed = PackedItemSets.sortedByPrice(itemSets);
+        if (BranchAndBoundSearch.isEmpty(packed)) {
+            return new ArrayList<>();
+        }
+
+        int pairs = packed.prices[0].length * packed.prices[1].length;
+        ParallelSearch root = new ParallelSearch(packed, BranchAndBoundSearch.suffixes(packed, targets), k, new AtomicLong(Long.MAX_VALUE), 0, pairs);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return SearchStats.ranked(pool.invoke(root), packed);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    protected TopBuilds compute() {
+        if (to - from <= PAIRS_PER_TASK) {
+            BranchAndBoundSearch search = new BranchAndBoundSearch(packed, suffixes, k, sharedBound);
+            int earrings = packed.prices[1].length;
+            for (int pair = from; pair < to; pair++) {
+                search.visitPrefix(pair / earrings, pair % earrings);
+            }
+            return search.top();
+        }
+
+        int middle = (from + to) >>> 1;
+        ParallelSearch left = new ParallelSearch(packed, suffixes, k, sharedBound, from, middle);
+        ParallelSearch right = new ParallelSearch(packed, suffixes, k, sharedBound, middle, to);
+        left.fork();
+        TopBuilds result = right.compute();
+        result.merge(left.join());
+        return result;
+    }
+
+    /**
+     * Runs the sequential and the parallel search on the current price file and logs the speedup for every
+     * power-of-two core count up to the machine's.
+     */
+    public static void main(String[] a) {
+        List<List<Item>> itemSets = Calculator.getItemSets();
+        Calculator.getPrices(itemSets);
+        long[] targets = PackedEngravings.targets(Calculator.BOOK_1_POINTS, Calculator.BOOK_2_POINTS);
+
+        long sequential = time(() -> BranchAndBoundSearch.search(itemSets, targets, Calculator.TOP_K));
+        log.info("sequential - {} ms", sequential / 1_000_000);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; ; parallelism = Math.min(parallelism * 2, cores)) {
+            int workers = parallelism;
+            long parallel = time(() -> search(itemSets, targets, Calculator.TOP_K, workers));
+            log.info("{} cores - {} ms - speedup {}", workers, parallel / 1_000_000, String.format("%.2f", (double) sequential / parallel));
+            if (parallelism == cores) {
+                break;
+            }
+        }
+    }
+
+    private static long time(Runnable search) {
+        // first run warms the JIT, the second one is measured
+        search.run();
+        long start = System.nanoTime();
+        search.run();
+        return System.nanoTime() - start;
+    }
+}
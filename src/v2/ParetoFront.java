@@ -0,0 +1,319 @@
+package v2;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * Every engraving outcome worth paying for instead of the one exact target: the cheapest build for each outcome
+ * that no other build reaches at least as well for no more, cheapest first.
+ * <p>
+ * An outcome is how many engravings reach level 3, level 2 or more and level 1 or more, a level being every 5
+ * points. Points past 15 are wasted rather than invalid, so states add with {@link #add} and stay at most 15 per
+ * engraving. The search is a forward pass over the slots, a mirrored EARRING_2 or RING_2 taken together with the
+ * slot before it as in {@link PriceSensitivity}, and then over the two books, which go on different engravings.
+ * After each step a state is dropped when another one has at least its points on every engraving for no more:
+ * the same listings take both to states that compare the same way, so it can never lead to a better outcome.
+ * <p>
+ * The states are kept on a dense grid of 16 values per engraving, where a sweep per engraving gives every cell the
+ * cheapest state at or above it, which finds all dominated states in time linear in the grid.
+ */
+final class ParetoFront {
+
+    private static final int ENGRAVINGS = EngravingType.values().length;
+    private static final int CELL_BITS = 4;
+    private static final int GRID = 1 << (CELL_BITS * ENGRAVINGS);
+    private static final long POINTS_PER_LEVEL = 5;
+
+    @Value
+    static class Point {
+        // the six accessories and then the two books
+        List<Item> build;
+        long price;
+        // engravings at level 3, at level 2 or more, and at level 1 or more
+        int threes;
+        int twos;
+        int ones;
+    }
+
+    // the listings a step can add: option i adds deltas[i] for prices[i], using listings[i] of the step's slots
+    private static class Options {
+        final long[] deltas;
+        final long[] prices;
+        final int[][] listings;
+
+        Options(long[] deltas, long[] prices, int[][] listings) {
+            this.deltas = deltas;
+            this.prices = prices;
+            this.listings = listings;
+        }
+    }
+
+    // the states left after a step, with the state and option of the step before that led to each
+    private static class Layer {
+        final long[] states;
+        final long[] prices;
+        final int[] parents;
+        final int[] options;
+
+        Layer(long[] states, long[] prices, int[] parents, int[] options) {
+            this.states = states;
+            this.prices = prices;
+            this.parents = parents;
+            this.options = options;
+        }
+    }
+
+    private ParetoFront() {
+    }
+
+    /**
+     * The front for the item sets as priced by {@link Calculator#getPrices(List)}, with the book points of their
+     * BOOKS_1 and BOOKS_2 lists; empty if there is no build at all.
+     */
+    static List<Point> of(List<List<Item>> itemSets) {
+        List<int[]> steps = new ArrayList<>();
+        List<Options> options = new ArrayList<>();
+        boolean[] mirrors = new PackedItemSets(itemSets).mirrors;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            ListingColumns listings = ListingColumns.of(itemSets.get(slot));
+            if (slot + 1 < SLOTS && mirrors[slot + 1]) {
+                steps.add(new int[]{slot, slot + 1});
+                options.add(pairOptions(listings));
+                slot++;
+            } else {
+                steps.add(new int[]{slot});
+                options.add(slotOptions(listings));
+            }
+        }
+        steps.add(new int[]{ItemType.BOOKS_1.ordinal(), ItemType.BOOKS_2.ordinal()});
+        options.add(bookOptions(itemSets.get(ItemType.BOOKS_1.ordinal()), itemSets.get(ItemType.BOOKS_2.ordinal())));
+
+        List<Layer> layers = new ArrayList<>();
+        layers.add(new Layer(new long[]{0}, new long[]{0}, new int[]{-1}, new int[]{-1}));
+        long[] best = new long[GRID];
+        long[] atLeast = new long[GRID];
+        int[] parents = new int[GRID];
+        int[] chosen = new int[GRID];
+        Arrays.fill(best, Long.MAX_VALUE);
+        for (Options step : options) {
+            layers.add(next(layers.get(layers.size() - 1), step, best, atLeast, parents, chosen));
+        }
+
+        // the cheapest final state per outcome, then only the outcomes nothing cheaper matches
+        Layer last = layers.get(layers.size() - 1);
+        Map<Integer, Integer> cheapest = new HashMap<>();
+        for (int i = 0; i < last.states.length; i++) {
+            cheapest.merge(outcome(last.states[i]), i, (kept, other) -> last.prices[other] < last.prices[kept] ? other : kept);
+        }
+        List<Point> front = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : cheapest.entrySet()) {
+            int outcome = entry.getKey();
+            long price = last.prices[entry.getValue()];
+            boolean dominated = cheapest.entrySet().stream().anyMatch(other -> other.getKey() != outcome
+                    && covers(other.getKey(), outcome) && last.prices[other.getValue()] <= price);
+            if (!dominated) {
+                front.add(new Point(build(itemSets, steps, options, layers, entry.getValue()), price,
+                        outcome >>> 16, outcome >>> 8 & 0xFF, outcome & 0xFF));
+            }
+        }
+        front.sort(Comparator.comparingLong(Point::getPrice));
+        return front;
+    }
+
+    /**
+     * {@code state + delta} with every engraving past 15 set back to 15. Neither may have an engraving past 15
+     * and no delta adds more than 16 to one, so an engraving that goes past 15 sets its own top bit and nothing
+     * else, as in {@link PackedEngravings}.
+     */
+    static long add(long state, long delta) {
+        long sum = state + delta;
+        long over = (sum & PackedEngravings.OVERFLOW_MASK) >>> (PackedEngravings.BITS - 1);
+        return sum & ~(over * PackedEngravings.FIELD_MASK) | over * PackedEngravings.MAX_POINTS;
+    }
+
+    private static Layer next(Layer layer, Options step, long[] best, long[] atLeast, int[] parents, int[] chosen) {
+        int[] touched = new int[Math.min(GRID, layer.states.length * step.deltas.length)];
+        long[] states = new long[touched.length];
+        int count = 0;
+        for (int s = 0; s < layer.states.length; s++) {
+            for (int o = 0; o < step.deltas.length; o++) {
+                long state = add(layer.states[s], step.deltas[o]);
+                long price = layer.prices[s] + step.prices[o];
+                int cell = cell(state);
+                if (best[cell] == Long.MAX_VALUE) {
+                    touched[count] = cell;
+                    states[count++] = state;
+                }
+                if (price < best[cell]) {
+                    best[cell] = price;
+                    parents[cell] = s;
+                    chosen[cell] = o;
+                }
+            }
+        }
+
+        // atLeast[cell]: the cheapest state with at least the cell's points on every engraving
+        System.arraycopy(best, 0, atLeast, 0, GRID);
+        for (int engraving = 0; engraving < ENGRAVINGS; engraving++) {
+            int shift = engraving * CELL_BITS;
+            for (int cell = GRID - 1; cell >= 0; cell--) {
+                if ((cell >>> shift & 0xF) < PackedEngravings.MAX_POINTS) {
+                    atLeast[cell] = Math.min(atLeast[cell], atLeast[cell + (1 << shift)]);
+                }
+            }
+        }
+
+        int kept = 0;
+        long[] keptStates = new long[count];
+        long[] keptPrices = new long[count];
+        int[] keptParents = new int[count];
+        int[] keptOptions = new int[count];
+        for (int i = 0; i < count; i++) {
+            int cell = touched[i];
+            boolean dominated = false;
+            for (int engraving = 0; engraving < ENGRAVINGS && !dominated; engraving++) {
+                int shift = engraving * CELL_BITS;
+                dominated = (cell >>> shift & 0xF) < PackedEngravings.MAX_POINTS && atLeast[cell + (1 << shift)] <= best[cell];
+            }
+            if (!dominated) {
+                keptStates[kept] = states[i];
+                keptPrices[kept] = best[cell];
+                keptParents[kept] = parents[cell];
+                keptOptions[kept++] = chosen[cell];
+            }
+            best[cell] = Long.MAX_VALUE;
+        }
+        return new Layer(Arrays.copyOf(keptStates, kept), Arrays.copyOf(keptPrices, kept), Arrays.copyOf(keptParents, kept), Arrays.copyOf(keptOptions, kept));
+    }
+
+    private static List<Item> build(List<List<Item>> itemSets, List<int[]> steps, List<Options> options, List<Layer> layers, int index) {
+        Item[] build = new Item[ItemType.values().length];
+        for (int l = layers.size() - 1; l > 0; l--) {
+            Layer layer = layers.get(l);
+            int[] slots = steps.get(l - 1);
+            int[] listings = options.get(l - 1).listings[layer.options[index]];
+            for (int i = 0; i < slots.length; i++) {
+                build[slots[i]] = itemSets.get(slots[i]).get(listings[i]);
+            }
+            index = layer.parents[index];
+        }
+        return new ArrayList<>(Arrays.asList(build));
+    }
+
+    // the cheapest listing of every delta
+    private static Options slotOptions(ListingColumns listings) {
+        Map<Long, Integer> cheapest = new HashMap<>();
+        for (int i = 0; i < listings.size(); i++) {
+            if (listings.price(i) < Calculator.UNAVAILABLE) {
+                cheapest.merge(listings.delta(i), i, (kept, other) -> listings.price(other) < listings.price(kept) ? other : kept);
+            }
+        }
+        List<int[]> chosen = new ArrayList<>();
+        cheapest.values().forEach(i -> chosen.add(new int[]{i}));
+        return options(chosen, listing -> listings.delta(listing[0]), listing -> listings.price(listing[0]));
+    }
+
+    // the cheapest two different listings of every combined delta, for a slot and its mirror
+    private static Options pairOptions(ListingColumns listings) {
+        // per delta its cheapest listing and the cheapest other one
+        Map<Long, int[]> twoCheapest = new HashMap<>();
+        for (int i = 0; i < listings.size(); i++) {
+            if (listings.price(i) >= Calculator.UNAVAILABLE) {
+                continue;
+            }
+            int[] two = twoCheapest.computeIfAbsent(listings.delta(i), delta -> new int[]{-1, -1});
+            if (two[0] < 0 || listings.price(i) < listings.price(two[0])) {
+                two[1] = two[0];
+                two[0] = i;
+            } else if (two[1] < 0 || listings.price(i) < listings.price(two[1])) {
+                two[1] = i;
+            }
+        }
+        Map<Long, int[]> pairs = new HashMap<>();
+        List<int[]> distinct = new ArrayList<>(twoCheapest.values());
+        for (int a = 0; a < distinct.size(); a++) {
+            for (int b = a; b < distinct.size(); b++) {
+                int[] pair = a == b ? distinct.get(a) : new int[]{distinct.get(a)[0], distinct.get(b)[0]};
+                if (pair[1] < 0) {
+                    continue;
+                }
+                long delta = listings.delta(pair[0]) + listings.delta(pair[1]);
+                long price = listings.price(pair[0]) + listings.price(pair[1]);
+                pairs.merge(delta, pair, (kept, other) -> price < listings.price(kept[0]) + listings.price(kept[1]) ? other : kept);
+            }
+        }
+        return options(new ArrayList<>(pairs.values()), pair -> listings.delta(pair[0]) + listings.delta(pair[1]),
+                pair -> listings.price(pair[0]) + listings.price(pair[1]));
+    }
+
+    // a BOOKS_1 and a BOOKS_2 listing on different engravings, the first listing of each engraving as in BookTable
+    private static Options bookOptions(List<Item> books1, List<Item> books2) {
+        List<int[]> pairs = new ArrayList<>();
+        for (int b1 = 0; b1 < books1.size(); b1++) {
+            for (int b2 = 0; b2 < books2.size(); b2++) {
+                Item book1 = books1.get(b1);
+                Item book2 = books2.get(b2);
+                if (book1.engraving1.engravingType != book2.engraving1.engravingType
+                        && firstOf(books1, b1) && firstOf(books2, b2)
+                        && book1.price < Calculator.UNAVAILABLE && book2.price < Calculator.UNAVAILABLE) {
+                    pairs.add(new int[]{b1, b2});
+                }
+            }
+        }
+        return options(pairs, pair -> PackedEngravings.delta(books1.get(pair[0])) + PackedEngravings.delta(books2.get(pair[1])),
+                pair -> books1.get(pair[0]).price + books2.get(pair[1]).price);
+    }
+
+    private static boolean firstOf(List<Item> books, int index) {
+        for (int i = 0; i < index; i++) {
+            if (books.get(i).engraving1.engravingType == books.get(index).engraving1.engravingType) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Options options(List<int[]> listings, ToLongFunction<int[]> delta, ToLongFunction<int[]> price) {
+        long[] deltas = new long[listings.size()];
+        long[] prices = new long[listings.size()];
+        for (int i = 0; i < deltas.length; i++) {
+            deltas[i] = delta.applyAsLong(listings.get(i));
+            prices[i] = price.applyAsLong(listings.get(i));
+        }
+        return new Options(deltas, prices, listings.toArray(new int[0][]));
+    }
+
+    // the state's points on the grid, 4 bits per engraving instead of 5
+    private static int cell(long state) {
+        int cell = 0;
+        for (int engraving = 0; engraving < ENGRAVINGS; engraving++) {
+            cell |= PackedEngravings.points(state, engraving) << (engraving * CELL_BITS);
+        }
+        return cell;
+    }
+
+    // threes << 16 | twos << 8 | ones
+    private static int outcome(long state) {
+        int[] reached = new int[4];
+        for (int engraving = 0; engraving < ENGRAVINGS; engraving++) {
+            int level = (int) (PackedEngravings.points(state, engraving) / POINTS_PER_LEVEL);
+            for (int l = 1; l <= level; l++) {
+                reached[l]++;
+            }
+        }
+        return reached[3] << 16 | reached[2] << 8 | reached[1];
+    }
+
+    private static boolean covers(int outcome, int other) {
+        return (outcome >>> 16) >= (other >>> 16) && (outcome >>> 8 & 0xFF) >= (other >>> 8 & 0xFF) && (outcome & 0xFF) >= (other & 0xFF);
+    }
+}
@@ -0,0 +1,216 @@
+package v2;
+
+import lombok.SneakyThrows;
+import lombok.Value;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * How cheap every listing would have to get for a build with it to make the top-K, from one pass over the slots
+ * instead of a solve per listing.
+ * <p>
+ * A forward table holds, for every step, the cheapest price of the steps before it for each state they can reach,
+ * and a backward one the cheapest completion of each state, books included. The cheapest valid build forced to
+ * contain a listing is then the best prefix and completion around the listing's delta, and that build ties with
+ * the current K-th cheapest one when the listing costs their difference: its break-even price.
+ * <p>
+ * A step is one slot, or a mirrored EARRING_2 or RING_2 together with the slot before it, over pairs of different
+ * listings as in {@link PackedItemSets#firstPosition}.
+ */
+final class PriceSensitivity {
+
+    @Value
+    static class Entry {
+        Item listing;
+        // cheapest valid build containing the listing at its current price, books included
+        long bestBuild;
+        // price at which that build costs as much as the current K-th cheapest, Long.MAX_VALUE if fewer exist
+        long breakEven;
+    }
+
+    private PriceSensitivity() {
+    }
+
+    /**
+     * An entry for every listing of the six slots that is part of at least one valid build, the ones closest to
+     * making the top-K first.
+     */
+    static List<Entry> report(List<List<Item>> itemSets, long[] targets, int k) {
+        List<Entry> entries = new ArrayList<>();
+        PackedItemSets sorted = PackedItemSets.sortedByPrice(itemSets);
+        if (BranchAndBoundSearch.isEmpty(sorted)) {
+            return entries;
+        }
+        BranchAndBoundSearch search = new BranchAndBoundSearch(sorted, targets, k, new AtomicLong(Long.MAX_VALUE));
+        search.visitWith(-1, 0, null);
+        long reference = search.top().worstPrice();
+
+        PackedItemSets packed = new PackedItemSets(itemSets);
+        List<int[]> steps = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (slot + 1 < SLOTS && packed.mirrors[slot + 1]) {
+                steps.add(new int[]{slot, slot + 1});
+                slot++;
+            } else {
+                steps.add(new int[]{slot});
+            }
+        }
+
+        List<Map<Long, Long>> options = new ArrayList<>();
+        for (int[] step : steps) {
+            options.add(step.length == 1 ? cheapestPerDelta(packed, step[0]) : cheapestPairs(packed, step[0]));
+        }
+        List<Map<Long, Long>> backward = new ArrayList<>();
+        Map<Long, Long> completions = new HashMap<>();
+        BookTable books = BookTable.of(itemSets, targets);
+        for (int t = 0; t < targets.length; t++) {
+            completions.merge(targets[t], books.cost(t), Math::min);
+        }
+        backward.add(completions);
+        for (int s = steps.size() - 1; s >= 0; s--) {
+            Map<Long, Long> before = new HashMap<>();
+            for (Map.Entry<Long, Long> after : backward.get(0).entrySet()) {
+                for (Map.Entry<Long, Long> option : options.get(s).entrySet()) {
+                    long state = MeetInTheMiddleSearch.remainder(after.getKey(), option.getKey());
+                    if (state >= 0) {
+                        before.merge(state, after.getValue() + option.getValue(), Math::min);
+                    }
+                }
+            }
+            backward.add(0, before);
+        }
+        List<Map<Long, Long>> forward = new ArrayList<>();
+        forward.add(Map.of(0L, 0L));
+        for (int s = 0; s < steps.size(); s++) {
+            Map<Long, Long> after = new HashMap<>();
+            for (Map.Entry<Long, Long> before : forward.get(s).entrySet()) {
+                for (Map.Entry<Long, Long> option : options.get(s).entrySet()) {
+                    long state = before.getKey() + option.getKey();
+                    // only states that can still be completed are worth carrying forward
+                    if (backward.get(s + 1).containsKey(state)) {
+                        after.merge(state, before.getValue() + option.getValue(), Math::min);
+                    }
+                }
+            }
+            forward.add(after);
+        }
+
+        for (int s = 0; s < steps.size(); s++) {
+            int[] step = steps.get(s);
+            Map<Long, Long> around = new HashMap<>();
+            for (int i = 0; i < packed.deltas[step[0]].length; i++) {
+                long rest = step.length == 1
+                        ? around(forward.get(s), backward.get(s + 1), packed.deltas[step[0]][i], around)
+                        : aroundPair(packed, step[0], i, forward.get(s), backward.get(s + 1), around);
+                if (rest == Long.MAX_VALUE) {
+                    continue;
+                }
+                long breakEven = reference == Long.MAX_VALUE ? Long.MAX_VALUE : reference - rest;
+                for (int slot : step) {
+                    entries.add(new Entry(packed.itemSets.get(slot).get(packed.itemIndices[slot][i]), rest + packed.prices[slot][i], breakEven));
+                }
+            }
+        }
+        // how far a listing is above its break-even price is how far its build is above the K-th cheapest
+        entries.sort(Comparator.comparingLong(Entry::getBestBuild));
+        return entries;
+    }
+
+    /**
+     * Writes one line per entry, the listing as in the price file followed by its break-even price.
+     */
+    @SneakyThrows
+    static void write(List<Entry> entries, String fileName) {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(fileName))) {
+            for (Entry entry : entries) {
+                writer.write(entry.listing + "," + (entry.breakEven == Long.MAX_VALUE ? "any" : entry.breakEven) + System.lineSeparator());
+            }
+        }
+    }
+
+    // cheapest prefix plus completion around a step that adds delta, Long.MAX_VALUE if there is none; memoized
+    private static long around(Map<Long, Long> forward, Map<Long, Long> backward, long delta, Map<Long, Long> memo) {
+        Long cached = memo.get(delta);
+        if (cached != null) {
+            return cached;
+        }
+        long best = Long.MAX_VALUE;
+        for (Map.Entry<Long, Long> before : forward.entrySet()) {
+            Long completion = backward.get(before.getKey() + delta);
+            if (completion != null) {
+                best = Math.min(best, before.getValue() + completion);
+            }
+        }
+        memo.put(delta, best);
+        return best;
+    }
+
+    // around() for listing i of a mirrored pair, with the cheapest other listing of every delta as its partner
+    private static long aroundPair(PackedItemSets packed, int slot, int i, Map<Long, Long> forward, Map<Long, Long> backward, Map<Long, Long> memo) {
+        long[] deltas = packed.deltas[slot];
+        long[] prices = packed.prices[slot];
+        Map<Long, Integer> partners = new HashMap<>();
+        for (int j = 0; j < deltas.length; j++) {
+            if (j != i) {
+                partners.merge(deltas[j], j, (kept, other) -> prices[other] < prices[kept] ? other : kept);
+            }
+        }
+        long best = Long.MAX_VALUE;
+        for (int partner : partners.values()) {
+            long rest = around(forward, backward, deltas[i] + deltas[partner], memo);
+            if (rest != Long.MAX_VALUE) {
+                best = Math.min(best, rest + prices[partner]);
+            }
+        }
+        return best;
+    }
+
+    private static Map<Long, Long> cheapestPerDelta(PackedItemSets packed, int slot) {
+        Map<Long, Long> cheapest = new HashMap<>();
+        for (int i = 0; i < packed.deltas[slot].length; i++) {
+            cheapest.merge(packed.deltas[slot][i], packed.prices[slot][i], Math::min);
+        }
+        return cheapest;
+    }
+
+    // two different listings of a slot and its mirror, cheapest per combined delta
+    private static Map<Long, Long> cheapestPairs(PackedItemSets packed, int slot) {
+        long[] deltas = packed.deltas[slot];
+        long[] prices = packed.prices[slot];
+        // per delta its cheapest listing and the cheapest other one
+        Map<Long, long[]> twoCheapest = new HashMap<>();
+        for (int i = 0; i < deltas.length; i++) {
+            long[] two = twoCheapest.computeIfAbsent(deltas[i], delta -> new long[]{Long.MAX_VALUE, Long.MAX_VALUE});
+            if (prices[i] < two[0]) {
+                two[1] = two[0];
+                two[0] = prices[i];
+            } else if (prices[i] < two[1]) {
+                two[1] = prices[i];
+            }
+        }
+        Map<Long, Long> pairs = new HashMap<>();
+        for (Map.Entry<Long, long[]> first : twoCheapest.entrySet()) {
+            for (Map.Entry<Long, long[]> second : twoCheapest.entrySet()) {
+                long delta = first.getKey() + second.getKey();
+                if (first.getKey().equals(second.getKey())) {
+                    if (first.getValue()[1] != Long.MAX_VALUE) {
+                        pairs.merge(delta, first.getValue()[0] + first.getValue()[1], Math::min);
+                    }
+                } else {
+                    pairs.merge(delta, first.getValue()[0] + second.getValue()[0], Math::min);
+                }
+            }
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,275 @@
+package v2;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Every listing of a price file, keyed by (ItemType, engraving1, engraving2) instead of by row number, so rows can
+ * come in any order, be missing, or repeat with several prices for the same key.
+ * <p>
+ * The file is memory-mapped and scanned byte by byte in one pass, matching names against the enum constants'
+ * bytes, so no String is created per line. Rows for engravings or item types this calculator does not know are
+ * skipped, which lets a full market dump be loaded as is.
+ */
+@Slf4j
+final class PriceSnapshot {
+
+    private static final byte[][] ITEM_TYPES = names(ItemType.values());
+    private static final byte[][] ENGRAVING_TYPES = names(EngravingType.values());
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    // per ItemType ordinal: (key << 32 | price) sorted ascending, so every key is one run of ascending prices
+    private final long[][] listings = new long[ITEM_TYPES.length][];
+    private final int[] sizes = new int[ITEM_TYPES.length];
+    private final int[] commas = new int[3];
+
+    private PriceSnapshot() {
+        for (int type = 0; type < listings.length; type++) {
+            listings[type] = new long[64];
+        }
+    }
+
+    @SneakyThrows
+    static PriceSnapshot load(String fileName) {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), fileName);
+        }
+    }
+
+    static PriceSnapshot parse(ByteBuffer buffer, String source) {
+        PriceSnapshot snapshot = new PriceSnapshot();
+        int skipped = snapshot.scan(buffer);
+        snapshot.sort();
+        if (skipped > 0) {
+            log.info("Skipped {} rows of {} for unknown item or engraving types", skipped, source);
+        }
+        return snapshot;
+    }
+
+    /**
+     * A copy of this snapshot in which every key that has rows in {@code delta} has exactly those rows instead.
+     */
+    PriceSnapshot merge(PriceSnapshot delta) {
+        PriceSnapshot merged = new PriceSnapshot();
+        for (int type = 0; type < listings.length; type++) {
+            long[] rows = delta.listings[type];
+            int size = delta.sizes[type];
+            for (int i = 0; i < sizes[type]; i++) {
+                long key = listings[type][i] >>> 32;
+                if (lowerBound(rows, size, key << 32) == lowerBound(rows, size, (key + 1) << 32)) {
+                    merged.add(type, listings[type][i]);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                merged.add(type, rows[i]);
+            }
+        }
+        merged.sort();
+        return merged;
+    }
+
+    /**
+     * SHA-256 over the sorted listings, so two files with the same rows in a different order or with different
+     * formatting get the same fingerprint.
+     */
+    @SneakyThrows
+    String fingerprint() {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        for (int type = 0; type < listings.length; type++) {
+            buffer.clear();
+            digest.update(buffer.putLong(0, (long) type << 32 | sizes[type]));
+            for (int i = 0; i < sizes[type]; i++) {
+                buffer.clear();
+                digest.update(buffer.putLong(0, listings[type][i]));
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Prices of every listing for the item's slot and engravings, cheapest first; empty when there is none.
+     */
+    long[] prices(Item item) {
+        int type = item.itemType.ordinal();
+        long key = key(ordinal(item.engraving1), points(item.engraving1), ordinal(item.engraving2), points(item.engraving2));
+        long[] rows = listings[type];
+        int from = lowerBound(rows, sizes[type], key << 32);
+        int to = lowerBound(rows, sizes[type], (key + 1) << 32);
+
+        long[] prices = new long[to - from];
+        for (int i = from; i < to; i++) {
+            prices[i - from] = rows[i] & 0xFFFF_FFFFL;
+        }
+        return prices;
+    }
+
+    private void sort() {
+        for (int type = 0; type < listings.length; type++) {
+            Arrays.sort(listings[type], 0, sizes[type]);
+        }
+    }
+
+    private int scan(ByteBuffer buffer) {
+        int skipped = 0;
+        int line = 1;
+        int position = 0;
+        int limit = buffer.limit();
+
+        while (position < limit) {
+            int end = position;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            int lineEnd = end > position && buffer.get(end - 1) == '\r' ? end - 1 : end;
+            if (lineEnd > position && !parse(buffer, position, lineEnd, line)) {
+                skipped++;
+            }
+            position = end + 1;
+            line++;
+        }
+        return skipped;
+    }
+
+    // TYPE,ENGRAVING points,ENGRAVING points|null,price
+    private boolean parse(ByteBuffer buffer, int from, int to, int line) {
+        int[] comma = commas;
+        int found = 0;
+        for (int i = from; i < to && found < 3; i++) {
+            if (buffer.get(i) == ',') {
+                comma[found++] = i;
+            }
+        }
+        if (found < 3) {
+            throw new IllegalArgumentException("Expected 4 comma separated fields on line " + line);
+        }
+
+        int type = match(buffer, from, comma[0], ITEM_TYPES);
+        int engraving1 = engraving(buffer, comma[0] + 1, comma[1]);
+        int engraving2 = engraving(buffer, comma[1] + 1, comma[2]);
+        if (type < 0 || engraving1 == Integer.MIN_VALUE || engraving2 == Integer.MIN_VALUE) {
+            return false;
+        }
+
+        long price = number(buffer, comma[2] + 1, to, line);
+        if (price > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Price out of range on line " + line);
+        }
+        long key = key(engraving1 >> 8, engraving1 & 0xFF, engraving2 >> 8, engraving2 & 0xFF);
+        add(type, key << 32 | price);
+        return true;
+    }
+
+    // (ordinal << 8 | points), -1 << 8 for "null", MIN_VALUE for an unknown engraving
+    private static int engraving(ByteBuffer buffer, int from, int to) {
+        if (equals(buffer, from, to, NULL)) {
+            return -1 << 8;
+        }
+        int space = from;
+        while (space < to && buffer.get(space) != ' ') {
+            space++;
+        }
+        int ordinal = match(buffer, from, space, ENGRAVING_TYPES);
+        if (ordinal < 0 || space == to) {
+            return Integer.MIN_VALUE;
+        }
+        int points = 0;
+        for (int i = space + 1; i < to; i++) {
+            byte digit = buffer.get(i);
+            if (digit < '0' || digit > '9' || points > 0xFF) {
+                return Integer.MIN_VALUE;
+            }
+            points = points * 10 + digit - '0';
+        }
+        return points > 0xFF ? Integer.MIN_VALUE : ordinal << 8 | points;
+    }
+
+    private static long number(ByteBuffer buffer, int from, int to, int line) {
+        if (from == to) {
+            throw new IllegalArgumentException("Invalid price on line " + line);
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte digit = buffer.get(i);
+            if (digit < '0' || digit > '9' || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid price on line " + line);
+            }
+            value = value * 10 + digit - '0';
+        }
+        return value;
+    }
+
+    private static int match(ByteBuffer buffer, int from, int to, byte[][] names) {
+        for (int i = 0; i < names.length; i++) {
+            if (equals(buffer, from, to, names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean equals(ByteBuffer buffer, int from, int to, byte[] name) {
+        if (to - from != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(from + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(int type, long listing) {
+        if (sizes[type] == listings[type].length) {
+            listings[type] = Arrays.copyOf(listings[type], sizes[type] * 2);
+        }
+        listings[type][sizes[type]++] = listing;
+    }
+
+    private static long key(int engraving1, int points1, int engraving2, int points2) {
+        return (long) (engraving1 + 1) << 24 | (long) points1 << 16 | (long) (engraving2 + 1) << 8 | points2;
+    }
+
+    private static int ordinal(Engraving engraving) {
+        return engraving == null ? -1 : engraving.engravingType.ordinal();
+    }
+
+    private static int points(Engraving engraving) {
+        return engraving == null ? 0 : engraving.points;
+    }
+
+    private static int lowerBound(long[] rows, int size, long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (rows[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+}
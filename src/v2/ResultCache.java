@@ -0,0 +1,209 @@
+package v2;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * Solved builds on disk, keyed by the {@link PriceSnapshot#fingerprint() snapshot fingerprint} and every setting
+ * that changes the answer, so an identical or rolled-back price file is answered without searching.
+ * <p>
+ * The file is memory-mapped: a header, a fixed table of {@value #MAX_ENTRIES} index records (key, offset, length,
+ * last use) and then the entries, each a list of builds stored as their price and the slot indices into the
+ * priced item sets. When a new entry would go past {@value #MAX_ENTRIES} entries or {@value #MAX_DATA_BYTES}
+ * bytes the least recently used ones are dropped. A file written with a different {@link #FORMAT_VERSION} or
+ * {@link #SOLVER_VERSION} is ignored and overwritten on the next store.
+ */
+@Slf4j
+final class ResultCache {
+
+    private static final int MAGIC = 0x4C414543;
+    private static final int FORMAT_VERSION = 1;
+    // bump whenever a change to the solvers changes which builds they return
+    static final int SOLVER_VERSION = 4;
+
+    private static final int MAX_ENTRIES = 1024;
+    private static final int MAX_DATA_BYTES = 8 << 20;
+
+    private static final int KEY_BYTES = 32;
+    // magic, format version, solver version, entries, use clock
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+    // key, offset, length, last use
+    private static final int RECORD_BYTES = KEY_BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int DATA_START = HEADER_BYTES + MAX_ENTRIES * RECORD_BYTES;
+
+    private final Path file;
+
+    ResultCache(String fileName) {
+        this.file = Paths.get(fileName);
+    }
+
+    /**
+     * The cached builds for this snapshot and the current settings, or {@code solver}'s answer, which is then
+     * stored. Returns fresh lists either way, ready for {@link Calculator#addBooks(List, List)}.
+     */
+    synchronized List<List<Item>> computeIfAbsent(PriceSnapshot snapshot, List<List<Item>> itemSets, Supplier<List<List<Item>>> solver) {
+        byte[] key = key(snapshot);
+        List<Entry> entries = read();
+        for (Entry entry : entries) {
+            if (Arrays.equals(entry.key, key)) {
+                touch(entry);
+                List<List<Item>> permutations = entry.permutations(itemSets);
+                log.info("{} Loaded {} builds from {}", LocalDateTime.now(), permutations.size(), file);
+                return permutations;
+            }
+        }
+
+        List<List<Item>> permutations = solver.get();
+        entries.add(new Entry(key, encode(permutations, itemSets), Long.MAX_VALUE));
+        write(entries);
+        return permutations;
+    }
+
+    @SneakyThrows
+    private static byte[] key(PriceSnapshot snapshot) {
+        String settings = snapshot.fingerprint() + "|" + Calculator.profile() + "|" + Calculator.TOP_K + "|" + Calculator.SEARCH_MODE + "|" + Calculator.INTERCHANGEABLE_PAIRS;
+        return MessageDigest.getInstance("SHA-256").digest(settings.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // price, then one index per slot into the priced item sets
+    // a listing that appears more than once is stored as its first copy, which reads back as an equal item
+    // LEGACY reports a partial build when nothing is valid; it is not a build, so it is not stored
+    static byte[] encode(List<List<Item>> permutations, List<List<Item>> itemSets) {
+        List<List<Item>> builds = permutations.stream().filter(permutation -> permutation.size() >= SLOTS).collect(Collectors.toList());
+        ByteBuffer data = ByteBuffer.allocate(Integer.BYTES + builds.size() * (Long.BYTES + SLOTS * Integer.BYTES));
+        data.putInt(builds.size());
+        for (List<Item> build : builds) {
+            data.putLong(build.stream().limit(SLOTS).mapToLong(item -> item.price).sum());
+            for (int slot = 0; slot < SLOTS; slot++) {
+                int index = itemSets.get(slot).indexOf(build.get(slot));
+                if (index < 0) {
+                    throw new IllegalStateException(build.get(slot) + " is not one of the " + ItemType.values()[slot] + " listings");
+                }
+                data.putInt(index);
+            }
+        }
+        return data.array();
+    }
+
+    @SneakyThrows
+    private List<Entry> read() {
+        List<Entry> entries = new ArrayList<>();
+        if (!file.toFile().exists() || file.toFile().length() < DATA_START) {
+            return entries;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != SOLVER_VERSION) {
+                log.info("{} Ignoring {}, written by another version", LocalDateTime.now(), file);
+                return entries;
+            }
+            int count = buffer.getInt(12);
+            for (int i = 0; i < count; i++) {
+                int record = HEADER_BYTES + i * RECORD_BYTES;
+                byte[] key = new byte[KEY_BYTES];
+                buffer.get(record, key);
+                long offset = buffer.getLong(record + KEY_BYTES);
+                int length = buffer.getInt(record + KEY_BYTES + Long.BYTES);
+                byte[] data = new byte[length];
+                buffer.get((int) offset, data);
+                Entry entry = new Entry(key, data, buffer.getLong(record + KEY_BYTES + Long.BYTES + Integer.BYTES));
+                entry.record = record;
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    @SneakyThrows
+    private void touch(Entry entry) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_START);
+            long clock = buffer.getLong(16) + 1;
+            buffer.putLong(16, clock);
+            buffer.putLong(entry.record + KEY_BYTES + Long.BYTES + Integer.BYTES, clock);
+        }
+    }
+
+    @SneakyThrows
+    private void write(List<Entry> entries) {
+        // most recently used first, the new entry (MAX_VALUE) ahead of all of them
+        entries.sort(Comparator.comparingLong((Entry entry) -> entry.lastUsed).reversed());
+        int kept = 0;
+        long dataBytes = 0;
+        while (kept < entries.size() && kept < MAX_ENTRIES && dataBytes + entries.get(kept).data.length <= MAX_DATA_BYTES) {
+            dataBytes += entries.get(kept++).data.length;
+        }
+
+        long clock = entries.stream().limit(kept).mapToLong(entry -> entry.lastUsed).filter(used -> used != Long.MAX_VALUE).max().orElse(0) + 1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_START + dataBytes);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(8, SOLVER_VERSION);
+            buffer.putInt(12, kept);
+            buffer.putLong(16, clock);
+
+            long offset = DATA_START;
+            for (int i = 0; i < kept; i++) {
+                Entry entry = entries.get(i);
+                int record = HEADER_BYTES + i * RECORD_BYTES;
+                buffer.put(record, entry.key);
+                buffer.putLong(record + KEY_BYTES, offset);
+                buffer.putInt(record + KEY_BYTES + Long.BYTES, entry.data.length);
+                buffer.putLong(record + KEY_BYTES + Long.BYTES + Integer.BYTES, entry.lastUsed == Long.MAX_VALUE ? clock : entry.lastUsed);
+                buffer.put((int) offset, entry.data);
+                offset += entry.data.length;
+            }
+            buffer.force();
+        }
+        if (kept < entries.size()) {
+            log.info("{} Evicted {} entries from {}", LocalDateTime.now(), entries.size() - kept, file);
+        }
+    }
+
+    private static final class Entry {
+        final byte[] key;
+        final byte[] data;
+        final long lastUsed;
+        int record;
+
+        Entry(byte[] key, byte[] data, long lastUsed) {
+            this.key = key;
+            this.data = data;
+            this.lastUsed = lastUsed;
+        }
+
+        List<List<Item>> permutations(List<List<Item>> itemSets) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            int builds = buffer.getInt();
+            List<List<Item>> permutations = new ArrayList<>(builds);
+            for (int i = 0; i < builds; i++) {
+                buffer.getLong();
+                List<Item> permutation = new ArrayList<>(SLOTS);
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    permutation.add(itemSets.get(slot).get(buffer.getInt()));
+                }
+                permutations.add(permutation);
+            }
+            return permutations;
+        }
+    }
+}
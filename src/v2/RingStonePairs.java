@@ -0,0 +1,83 @@
+package v2;
+
+/**
+ * The two innermost slots of {@link Calculator#buildPackedPermutations}, RING_2 and STONE, flattened into one
+ * structure-of-arrays list of pairs: pair {@code ring2 * stones + stone} adds {@code deltas[pair]} to the state
+ * and costs {@code prices[pair]}. Every RING_1 listing then checks all its pairs in one {@link #scan}, which
+ * {@link VectorPairScan} does a whole vector of pairs at a time when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, and the plain loop below does otherwise. Both find the same pairs in
+ * the same order.
+ */
+final class RingStonePairs {
+
+    private static final boolean VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    final long[] deltas;
+    final long[] prices;
+    private final int stones;
+
+    RingStonePairs(PackedItemSets packed) {
+        int ring2Slot = ItemType.RING_2.ordinal();
+        int stoneSlot = ItemType.STONE.ordinal();
+        int rings = packed.deltas[ring2Slot].length;
+        stones = packed.deltas[stoneSlot].length;
+        deltas = new long[rings * stones];
+        prices = new long[rings * stones];
+        for (int ring2 = 0; ring2 < rings; ring2++) {
+            for (int stone = 0; stone < stones; stone++) {
+                deltas[ring2 * stones + stone] = packed.deltas[ring2Slot][ring2] + packed.deltas[stoneSlot][stone];
+                prices[ring2 * stones + stone] = packed.prices[ring2Slot][ring2] + packed.prices[stoneSlot][stone];
+            }
+        }
+    }
+
+    /**
+     * Whether {@link #scan} uses the Vector API.
+     */
+    static boolean isVectorized() {
+        return Calculator.VECTORIZE && VECTOR_API;
+    }
+
+    int size() {
+        return deltas.length;
+    }
+
+    // first pair of the given RING_2 position
+    int start(int ring2) {
+        return ring2 * stones;
+    }
+
+    int ring2(int pair) {
+        return pair / stones;
+    }
+
+    int stone(int pair) {
+        return pair % stones;
+    }
+
+    /**
+     * Writes to {@code matches}, in ascending order, every pair from {@code from} on that takes {@code state} to
+     * one of {@code targets} for at most {@code bound}.
+     *
+     * @return how many pairs were written
+     */
+    int scan(long state, long bound, int from, long[] targets, int[] matches) {
+        if (targets.length == 0) {
+            return 0;
+        }
+        if (isVectorized()) {
+            return VectorPairScan.scan(deltas, prices, state, bound, from, targets, matches);
+        }
+        return scan(deltas, prices, state, bound, from, targets, matches, 0);
+    }
+
+    static int scan(long[] deltas, long[] prices, long state, long bound, int from, long[] targets, int[] matches, int found) {
+        for (int pair = from; pair < deltas.length; pair++) {
+            long pairState = state + deltas[pair];
+            if (!PackedEngravings.overflows(pairState) && prices[pair] <= bound && PackedEngravings.matches(pairState, targets)) {
+                matches[found++] = pair;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,276 @@
+package v2;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * Cheapest builds for several characters out of one set of listings, where a listing bought for one character is
+ * gone for the others. Stones are each character's own and books can be bought as often as needed, so only the
+ * accessories are shared.
+ * <p>
+ * Lagrangian relaxation over the listings: every round solves each character on its own with a penalty added to
+ * the price of every listing, which bounds the cheapest roster from below. Listings more than one character took
+ * then get dearer and unwanted ones cheaper again. Each round also repairs its builds into a roster: characters
+ * whose build shares no listing keep it, the others are re-solved one by one at the real prices without the
+ * listings already taken. The search stops once the cheapest roster so far costs no more than the bound, or after
+ * {@value #MAX_ROUNDS} rounds.
+ * <p>
+ * As in {@link BatchSolver}, every character's books are priced from the snapshot for its own book points.
+ */
+@Slf4j
+final class RosterSolver {
+
+    private static final int MAX_ROUNDS = 100;
+    // rounds without a better bound before the step is halved
+    private static final int PATIENCE = 5;
+
+    @Value
+    static class Roster {
+        // one build per profile, in the order of the profiles, books included; empty if there is no roster
+        List<List<Item>> builds;
+        long price;
+        // no roster costs less, equal to price when the roster is proven to be the cheapest
+        long lowerBound;
+    }
+
+    // a build as indices into its item sets
+    @Value
+    private static class Choice {
+        int[] indices;
+        long price;
+    }
+
+    private RosterSolver() {
+    }
+
+    /**
+     * @param itemSets priced as by {@link Calculator#getPrices(List, PriceSnapshot)}; their STONE and books are
+     *                 replaced by each profile's own
+     * @param snapshot where the books of every profile are priced
+     */
+    static Roster solve(List<List<Item>> itemSets, PriceSnapshot snapshot, List<SolveProfile> profiles) {
+        List<List<Item>> shared = new ArrayList<>(itemSets);
+        for (int slot = 0; slot < ItemType.STONE.ordinal(); slot++) {
+            shared.set(slot, ListingColumns.of(itemSets.get(slot)));
+        }
+        List<List<List<Item>>> profileItemSets = new ArrayList<>();
+        for (SolveProfile profile : profiles) {
+            List<List<Item>> own = Calculator.withBooks(shared, profile, snapshot);
+            own.set(ItemType.STONE.ordinal(), profile.stones());
+            profileItemSets.add(own);
+        }
+        int[][] ids = listingIds(shared);
+        int listings = 0;
+        for (int[] slotIds : ids) {
+            for (int id : slotIds) {
+                listings = Math.max(listings, id + 1);
+            }
+        }
+
+        double[] penalties = new double[listings];
+        Choice[] best = null;
+        long bestPrice = Long.MAX_VALUE;
+        long lowerBound = 0;
+        double scale = 2;
+        int sinceBetterBound = 0;
+        int round = 0;
+        for (; round < MAX_ROUNDS && lowerBound < bestPrice; round++) {
+            long[] rounded = new long[listings];
+            long bound = 0;
+            for (int id = 0; id < listings; id++) {
+                rounded[id] = Math.round(penalties[id]);
+                bound -= rounded[id];
+            }
+            Choice[] relaxed = new Choice[profiles.size()];
+            int[] usage = new int[listings];
+            for (int c = 0; c < relaxed.length; c++) {
+                relaxed[c] = cheapest(penalized(profileItemSets.get(c), ids, rounded), profiles.get(c).targets(), ids, null);
+                if (relaxed[c] == null) {
+                    log.info("{} {} has no build at all", LocalDateTime.now(), profiles.get(c));
+                    return new Roster(new ArrayList<>(), Calculator.UNAVAILABLE, Calculator.UNAVAILABLE);
+                }
+                bound += relaxed[c].price;
+                forEachListing(relaxed[c], ids, id -> usage[id]++);
+            }
+            if (bound > lowerBound) {
+                lowerBound = bound;
+                sinceBetterBound = 0;
+            } else if (++sinceBetterBound == PATIENCE) {
+                scale /= 2;
+                sinceBetterBound = 0;
+            }
+
+            Choice[] roster = repair(profileItemSets, profiles, ids, relaxed, usage, rounded);
+            long price = roster == null ? Long.MAX_VALUE : total(roster);
+            if (price < bestPrice) {
+                best = roster;
+                bestPrice = price;
+            }
+
+            // subgradient step: usage - 1 per listing, not pushing a penalty that is already 0 below it
+            double norm = 0;
+            for (int id = 0; id < listings; id++) {
+                if (usage[id] > 1 || penalties[id] > 0) {
+                    norm += (usage[id] - 1) * (usage[id] - 1);
+                }
+            }
+            if (norm == 0) {
+                break;
+            }
+            // aims at the cheapest roster so far, or at twice the bound before there is one
+            long target = bestPrice == Long.MAX_VALUE ? 2 * Math.max(1, bound) : bestPrice;
+            double step = scale * Math.max(1, target - bound) / norm;
+            for (int id = 0; id < listings; id++) {
+                penalties[id] = Math.max(0, penalties[id] + step * (usage[id] - 1));
+            }
+        }
+        log.info("{} Roster of {} after {} rounds: {}, at least {}", LocalDateTime.now(), profiles.size(), round, bestPrice, lowerBound);
+
+        List<List<Item>> builds = new ArrayList<>();
+        if (best == null) {
+            return new Roster(builds, Calculator.UNAVAILABLE, lowerBound);
+        }
+        for (int c = 0; c < best.length; c++) {
+            List<Item> build = new ArrayList<>();
+            for (int slot = 0; slot < SLOTS; slot++) {
+                build.add(profileItemSets.get(c).get(slot).get(best[c].indices[slot]));
+            }
+            builds.add(build);
+            Calculator.addBooks(builds.subList(c, c + 1), profileItemSets.get(c), profiles.get(c).targets());
+        }
+        return new Roster(builds, bestPrice, Math.min(lowerBound, bestPrice));
+    }
+
+    /**
+     * Solves the profiles given as arguments, each in {@link SolveServer}'s query format
+     * ({@code "class=AWAKENING&book2=9&stone=HEAVY_ARMOR 7,EXPERT 7"}), against the current price file.
+     */
+    public static void main(String[] a) {
+        List<SolveProfile> profiles = new ArrayList<>();
+        for (String profile : a) {
+            profiles.add(SolveServer.profile(SolveServer.query(profile)));
+        }
+        if (profiles.isEmpty()) {
+            profiles.add(Calculator.profile());
+        }
+        List<List<Item>> itemSets = Calculator.getItemSets(profiles.get(0));
+        PriceSnapshot snapshot = PriceSnapshot.load(Calculator.FILE_NAME);
+        Calculator.getPrices(itemSets, snapshot);
+        Roster roster = solve(itemSets, snapshot, profiles);
+        for (int c = 0; c < roster.builds.size(); c++) {
+            log.info("{} {} - {}", LocalDateTime.now(), profiles.get(c), roster.builds.get(c));
+        }
+        log.info("{} Roster - {} - at least {}", LocalDateTime.now(), roster.price, roster.lowerBound);
+    }
+
+    // characters whose build shares nothing keep it, the rest are solved in order around the listings taken
+    private static Choice[] repair(List<List<List<Item>>> profileItemSets, List<SolveProfile> profiles, int[][] ids,
+                                   Choice[] relaxed, int[] usage, long[] penalties) {
+        Choice[] roster = new Choice[relaxed.length];
+        boolean[] taken = new boolean[usage.length];
+        for (int c = 0; c < relaxed.length; c++) {
+            boolean shares = false;
+            for (int slot = 0; slot < ItemType.STONE.ordinal(); slot++) {
+                shares |= usage[ids[slot][relaxed[c].indices[slot]]] > 1;
+            }
+            if (!shares) {
+                long[] penalty = {0};
+                forEachListing(relaxed[c], ids, id -> penalty[0] += penalties[id]);
+                roster[c] = new Choice(relaxed[c].indices, relaxed[c].price - penalty[0]);
+                forEachListing(roster[c], ids, id -> taken[id] = true);
+            }
+        }
+        for (int c = 0; c < roster.length; c++) {
+            if (roster[c] == null) {
+                roster[c] = cheapest(profileItemSets.get(c), profiles.get(c).targets(), ids, taken);
+                if (roster[c] == null) {
+                    return null;
+                }
+                forEachListing(roster[c], ids, id -> taken[id] = true);
+            }
+        }
+        return roster;
+    }
+
+    // the cheapest build without any taken listing, or null
+    private static Choice cheapest(List<List<Item>> itemSets, long[] targets, int[][] ids, boolean[] taken) {
+        PackedItemSets packed = PackedItemSets.sortedByPrice(itemSets);
+        if (BranchAndBoundSearch.isEmpty(packed)) {
+            return null;
+        }
+        boolean[][] excluded = null;
+        if (taken != null) {
+            excluded = new boolean[SLOTS][];
+            for (int slot = 0; slot < SLOTS; slot++) {
+                excluded[slot] = new boolean[packed.itemIndices[slot].length];
+                for (int position = 0; slot < ItemType.STONE.ordinal() && position < excluded[slot].length; position++) {
+                    excluded[slot][position] = taken[ids[slot][packed.itemIndices[slot][position]]];
+                }
+            }
+        }
+        BranchAndBoundSearch search = new BranchAndBoundSearch(packed, targets, 1, new AtomicLong(Long.MAX_VALUE));
+        search.visitWith(-1, 0, excluded);
+        if (search.top().size() == 0) {
+            return null;
+        }
+        int[] build = search.top().build(0);
+        int[] indices = new int[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            indices[slot] = packed.itemIndices[slot][build[slot]];
+        }
+        return new Choice(indices, search.top().price(0));
+    }
+
+    // the accessories with their listing's penalty added to the price, in the same order
+    private static List<List<Item>> penalized(List<List<Item>> itemSets, int[][] ids, long[] penalties) {
+        List<List<Item>> penalized = new ArrayList<>(itemSets);
+        for (int slot = 0; slot < ItemType.STONE.ordinal(); slot++) {
+            ListingColumns items = ListingColumns.of(itemSets.get(slot));
+            long[] prices = new long[items.size()];
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] = items.price(i) + penalties[ids[slot][i]];
+            }
+            penalized.set(slot, items.withPrices(prices));
+        }
+        return penalized;
+    }
+
+    /**
+     * A number for every accessory listing, by slot and index. A mirrored EARRING_2 or RING_2 lists the same
+     * listings as the slot before it, so its listings share their numbers.
+     */
+    private static int[][] listingIds(List<List<Item>> itemSets) {
+        boolean[] mirrors = new PackedItemSets(itemSets).mirrors;
+        int[][] ids = new int[ItemType.STONE.ordinal()][];
+        int next = 0;
+        for (int slot = 0; slot < ids.length; slot++) {
+            ids[slot] = new int[itemSets.get(slot).size()];
+            for (int i = 0; i < ids[slot].length; i++) {
+                ids[slot][i] = mirrors[slot] ? ids[slot - 1][i] : next++;
+            }
+        }
+        return ids;
+    }
+
+    private static void forEachListing(Choice choice, int[][] ids, IntConsumer action) {
+        for (int slot = 0; slot < ids.length; slot++) {
+            action.accept(ids[slot][choice.indices[slot]]);
+        }
+    }
+
+    private static long total(Choice[] roster) {
+        long total = 0;
+        for (Choice choice : roster) {
+            total += choice.price;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,199 @@
+package v2;
+
+import lombok.SneakyThrows;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * Counters of the tree searches and wall time per phase, summed over every search since the last {@link #reset()}
+ * and registered as {@value #OBJECT_NAME} by {@link #register()}.
+ * <p>
+ * A search counts into its own {@link Counters} and only adds them to the shared {@link LongAdder}s when it is
+ * done with a piece of work, so the hot loops never touch shared memory. Every {@link SearchMode} but LEGACY counts,
+ * and so do {@link BatchSolver} and the searches {@link IncrementalSolver} and {@link RosterSolver} run. A table
+ * search counts the entries it adds per slot as nodes and the full builds it ends up holding as leaves.
+ * <p>
+ * {@link Calculator#main} runs one search and watch mode resets before every re-solve, so their summary is that
+ * of one run. {@link SolveServer} answers requests side by side and reports the sums since it started.
+ */
+final class SearchStats implements SearchStatsMBean {
+
+    static final String OBJECT_NAME = "v2:type=SearchStats";
+    static final SearchStats STATS = new SearchStats();
+
+    enum Phase {
+        LOAD,
+        ITEM_SETS,
+        SEARCH,
+        BOOKS,
+        // ordering the kept builds, already part of SEARCH
+        SORT
+    }
+
+    private final LongAdder[] nodes = adders(SLOTS);
+    private final LongAdder overflowPruned = new LongAdder();
+    private final LongAdder infeasiblePruned = new LongAdder();
+    private final LongAdder boundPruned = new LongAdder();
+    private final LongAdder leaves = new LongAdder();
+    private final LongAdder validBuilds = new LongAdder();
+    private final LongAdder[] phaseNanos = adders(Phase.values().length);
+
+    private SearchStats() {
+    }
+
+    @SneakyThrows
+    static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(STATS, name);
+        }
+    }
+
+    static <T> T time(Phase phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            add(phase, System.nanoTime() - start);
+        }
+    }
+
+    static void time(Phase phase, Runnable work) {
+        time(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    static void add(Phase phase, long nanos) {
+        STATS.phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    /**
+     * The final ranking of a search: {@code top} sorted cheapest first, timed as {@link Phase#SORT}, and turned into
+     * builds. The heaps a search keeps along the way sort themselves untimed.
+     */
+    static List<List<Item>> ranked(TopBuilds top, PackedItemSets packed) {
+        time(Phase.SORT, top::sort);
+        return top.permutations(packed);
+    }
+
+    /**
+     * Counts of one search, only ever touched by the thread running it.
+     */
+    static final class Counters {
+
+        // listings placed in each slot that passed the bound and overflow checks
+        final long[] nodes = new long[SLOTS];
+        long overflowPruned;
+        // partial builds whose state no listings left can take to a target, see SuffixTable
+        long infeasiblePruned;
+        // loops cut short because the remaining listings could not beat the kept builds
+        long boundPruned;
+        long leaves;
+        // leaves reaching the targets at a price good enough to be offered
+        long validBuilds;
+
+        void flush() {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                STATS.nodes[slot].add(nodes[slot]);
+            }
+            STATS.overflowPruned.add(overflowPruned);
+            STATS.infeasiblePruned.add(infeasiblePruned);
+            STATS.boundPruned.add(boundPruned);
+            STATS.leaves.add(leaves);
+            STATS.validBuilds.add(validBuilds);
+            Arrays.fill(nodes, 0);
+            overflowPruned = 0;
+            infeasiblePruned = 0;
+            boundPruned = 0;
+            leaves = 0;
+            validBuilds = 0;
+        }
+    }
+
+    @Override
+    public long[] getNodesPerSlot() {
+        return sums(nodes);
+    }
+
+    @Override
+    public long getOverflowPruned() {
+        return overflowPruned.sum();
+    }
+
+    @Override
+    public long getInfeasiblePruned() {
+        return infeasiblePruned.sum();
+    }
+
+    @Override
+    public long getBoundPruned() {
+        return boundPruned.sum();
+    }
+
+    @Override
+    public long getLeaves() {
+        return leaves.sum();
+    }
+
+    @Override
+    public long getValidBuilds() {
+        return validBuilds.sum();
+    }
+
+    @Override
+    public long[] getPhaseMillis() {
+        return Arrays.stream(phaseNanos).mapToLong(nanos -> nanos.sum() / 1_000_000).toArray();
+    }
+
+    /**
+     * Everything above as one line of JSON.
+     */
+    @Override
+    public String getSummary() {
+        StringJoiner phases = new StringJoiner(",", "{", "}");
+        long[] millis = getPhaseMillis();
+        for (Phase phase : Phase.values()) {
+            phases.add("\"" + phase.name().toLowerCase() + "\":" + millis[phase.ordinal()]);
+        }
+        return "{\"nodesPerSlot\":" + Arrays.toString(getNodesPerSlot()).replace(" ", "")
+                + ",\"overflowPruned\":" + getOverflowPruned()
+                + ",\"infeasiblePruned\":" + getInfeasiblePruned()
+                + ",\"boundPruned\":" + getBoundPruned()
+                + ",\"leaves\":" + getLeaves()
+                + ",\"validBuilds\":" + getValidBuilds()
+                + ",\"phaseMillis\":" + phases + "}";
+    }
+
+    @Override
+    public void reset() {
+        Arrays.stream(nodes).forEach(LongAdder::reset);
+        overflowPruned.reset();
+        infeasiblePruned.reset();
+        boundPruned.reset();
+        leaves.reset();
+        validBuilds.reset();
+        Arrays.stream(phaseNanos).forEach(LongAdder::reset);
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        Arrays.setAll(adders, i -> new LongAdder());
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        return Arrays.stream(adders).mapToLong(LongAdder::sum).toArray();
+    }
+}
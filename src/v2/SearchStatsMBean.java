@@ -0,0 +1,25 @@
+package v2;
+
+/**
+ * JMX view of {@link SearchStats}. Public only because standard MBean interfaces have to be.
+ */
+public interface SearchStatsMBean {
+
+    long[] getNodesPerSlot();
+
+    long getOverflowPruned();
+
+    long getInfeasiblePruned();
+
+    long getBoundPruned();
+
+    long getLeaves();
+
+    long getValidBuilds();
+
+    long[] getPhaseMillis();
+
+    String getSummary();
+
+    void reset();
+}
@@ -0,0 +1,39 @@
+package v2;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The per-character half of {@link Calculator}'s settings, so several characters can be solved against the same
+ * listings. The engraving set itself is still {@link EngravingType}.
+ */
+@Value
+class SolveProfile {
+    EngravingType classEngraving;
+    int book1Points;
+    int book2Points;
+    // your own stone, or null to consider every 7/7 stone without the class engraving
+    Item stone;
+
+    long[] targets() {
+        return PackedEngravings.targets(book1Points, book2Points);
+    }
+
+    List<Item> stones() {
+        List<Item> stones = new ArrayList<>();
+        if (stone != null) {
+            stones.add(stone);
+        } else {
+            for (int i = 0; i < EngravingType.values().length - 1; i++) {
+                for (int j = i + 1; j < EngravingType.values().length; j++) {
+                    if (EngravingType.values()[i] != classEngraving && EngravingType.values()[j] != classEngraving) {
+                        stones.add(new Item(ItemType.STONE, new Engraving(EngravingType.values()[i], 7), new Engraving(EngravingType.values()[j], 7), 0));
+                    }
+                }
+            }
+        }
+        return stones;
+    }
+}
@@ -0,0 +1,253 @@
+package v2;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-lived solver behind the JDK's HttpServer, so a query pays neither JVM startup nor a cold JIT.
+ * <p>
+ * {@code POST /solve} takes a price file (the rows of {@code bardPriceInput.txt}) as the body and the profile as query
+ * parameters: {@code class}, {@code book1}, {@code book2}, {@code stone} ({@code "AWAKENING 7,HEAVY_ARMOR 5"}, or
+ * leave it out to buy one) and {@code k}, from 1 to {@value #MAX_K}. With {@code base=<fingerprint>} the body is a delta instead: its rows
+ * replace every listing of their keys in that earlier snapshot. The answer is the top-K builds, books included,
+ * as JSON together with the snapshot's fingerprint.
+ * <p>
+ * Answers are kept in an LRU keyed by fingerprint and profile. The cache holds futures, so a request that comes in
+ * while an identical one is still being solved waits for that result instead of solving it again.
+ * {@code GET /stats} reports p50/p99 latency over the last {@value #LATENCY_WINDOW} requests and the
+ * {@link SearchStats} summed over every request since it started.
+ */
+@Slf4j
+final class SolveServer {
+
+    private static final int PORT = 8080;
+    private static final int CACHED_RESULTS = 256;
+    private static final int CACHED_SNAPSHOTS = 16;
+    private static final int LATENCY_WINDOW = 1024;
+    // every build kept costs SLOTS ints, so k is what a request gets to allocate
+    private static final int MAX_K = 1000;
+
+    private final Map<String, CompletableFuture<String>> results = lru(CACHED_RESULTS);
+    private final Map<String, PriceSnapshot> snapshots = lru(CACHED_SNAPSHOTS);
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long requests;
+    private long cacheHits;
+
+    public static void main(String[] a) throws IOException {
+        int port = a.length > 0 ? Integer.parseInt(a[0]) : PORT;
+        SearchStats.register();
+        SolveServer solveServer = new SolveServer();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/solve", solveServer::handleSolve);
+        server.createContext("/stats", solveServer::handleStats);
+        server.setExecutor(Executors.newFixedThreadPool(Calculator.PARALLELISM));
+        server.start();
+        log.info("Listening on http://localhost:{}/solve", port);
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("POST a price snapshot"));
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            PriceSnapshot snapshot = PriceSnapshot.parse(ByteBuffer.wrap(body), "request");
+            if (query.containsKey("base")) {
+                PriceSnapshot base = snapshot(query.get("base"));
+                if (base == null) {
+                    respond(exchange, 404, error("Unknown base snapshot " + query.get("base")));
+                    return;
+                }
+                snapshot = base.merge(snapshot);
+            }
+            String fingerprint = snapshot.fingerprint();
+            snapshot(fingerprint, snapshot);
+
+            SolveProfile profile = profile(query);
+            int k = Integer.parseInt(query.getOrDefault("k", String.valueOf(Calculator.TOP_K)));
+            if (k < 1 || k > MAX_K) {
+                throw new IllegalArgumentException("k goes from 1 to " + MAX_K + ", got " + k);
+            }
+            respond(exchange, 200, result(fingerprint, snapshot, profile, k).join());
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, error(e.getMessage()));
+        } catch (CompletionException e) {
+            log.warn("Solve failed", e.getCause());
+            respond(exchange, 500, error(String.valueOf(e.getCause().getMessage())));
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        long[] window;
+        long total;
+        long hits;
+        synchronized (latencies) {
+            total = requests;
+            hits = cacheHits;
+            window = Arrays.copyOf(latencies, (int) Math.min(total, LATENCY_WINDOW));
+        }
+        Arrays.sort(window);
+        respond(exchange, 200, "{\"requests\":" + total + ",\"cacheHits\":" + hits
+                + ",\"p50Micros\":" + percentile(window, 50) + ",\"p99Micros\":" + percentile(window, 99)
+                + ",\"search\":" + SearchStats.STATS.getSummary() + "}");
+    }
+
+    private CompletableFuture<String> result(String fingerprint, PriceSnapshot snapshot, SolveProfile profile, int k) {
+        String key = fingerprint + "|" + profile + "|" + k;
+        CompletableFuture<String> result;
+        synchronized (results) {
+            result = results.get(key);
+            if (result != null) {
+                synchronized (latencies) {
+                    cacheHits++;
+                }
+                return result;
+            }
+            result = new CompletableFuture<>();
+            results.put(key, result);
+        }
+
+        // an Error too, or every identical request after it would wait on a future that never completes
+        try {
+            result.complete(solve(fingerprint, snapshot, profile, k));
+        } catch (Throwable e) {
+            synchronized (results) {
+                results.remove(key, result);
+            }
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static String solve(String fingerprint, PriceSnapshot snapshot, SolveProfile profile, int k) {
+        List<List<Item>> itemSets = Calculator.getItemSets(profile);
+        Calculator.getPrices(itemSets, snapshot);
+        List<List<Item>> permutations = Calculator.SEARCH_MODE.solver.solve(ListingFilter.reduce(itemSets, k), profile.targets(), k);
+        Calculator.addBooks(permutations, itemSets, profile.targets());
+
+        StringBuilder json = new StringBuilder("{\"fingerprint\":\"").append(fingerprint).append("\",\"builds\":[");
+        for (int i = 0; i < permutations.size(); i++) {
+            List<Item> build = permutations.get(i);
+            json.append(i == 0 ? "" : ",").append("{\"price\":").append(build.stream().mapToLong(item -> item.price).sum()).append(",\"items\":[");
+            for (int j = 0; j < build.size(); j++) {
+                Item item = build.get(j);
+                json.append(j == 0 ? "" : ",")
+                        .append("{\"type\":\"").append(item.itemType)
+                        .append("\",\"engraving1\":\"").append(item.engraving1)
+                        .append("\",\"engraving2\":").append(item.engraving2 == null ? "null" : "\"" + item.engraving2 + "\"")
+                        .append(",\"price\":").append(item.price).append("}");
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    static SolveProfile profile(Map<String, String> query) {
+        EngravingType classEngraving = EngravingType.valueOf(query.getOrDefault("class", Calculator.CLASS_ENGRAVING.name()));
+        int book1Points = Integer.parseInt(query.getOrDefault("book1", String.valueOf(Calculator.BOOK_1_POINTS)));
+        int book2Points = Integer.parseInt(query.getOrDefault("book2", String.valueOf(Calculator.BOOK_2_POINTS)));
+        Item stone = null;
+        if (query.containsKey("stone")) {
+            String[] engravings = query.get("stone").split(",");
+            if (engravings.length != 2) {
+                throw new IllegalArgumentException("A stone has two engravings, got " + query.get("stone"));
+            }
+            stone = new Item(ItemType.STONE, engraving(engravings[0]), engraving(engravings[1]), 0);
+        }
+        return new SolveProfile(classEngraving, book1Points, book2Points, stone);
+    }
+
+    private static Engraving engraving(String value) {
+        String[] parts = value.trim().split(" ");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected \"ENGRAVING points\", got " + value);
+        }
+        return new Engraving(EngravingType.valueOf(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    private PriceSnapshot snapshot(String fingerprint) {
+        synchronized (snapshots) {
+            return snapshots.get(fingerprint);
+        }
+    }
+
+    private void snapshot(String fingerprint, PriceSnapshot snapshot) {
+        synchronized (snapshots) {
+            snapshots.put(fingerprint, snapshot);
+        }
+    }
+
+    private void record(long nanos) {
+        synchronized (latencies) {
+            latencies[(int) (requests++ % LATENCY_WINDOW)] = nanos / 1_000;
+        }
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile / 100.0) - 1)];
+    }
+
+    @SneakyThrows
+    static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    private static <V> Map<String, V> lru(int capacity) {
+        return new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package v2;
+
+import java.util.List;
+
+/**
+ * One way of finding the cheapest builds in a set of item lists, selected per run through {@link SearchMode}.
+ */
+interface Solver {
+
+    /**
+     * @param itemSets item lists as built by {@link Calculator#getItemSets()}, NECKLACE through STONE first
+     * @param targets  packed engraving states a build has to reach, see {@link PackedEngravings#targets(int, int)}
+     * @param k        how many of the cheapest builds to return, ignored by the engines that only track improvements
+     */
+    List<List<Item>> solve(List<List<Item>> itemSets, long[] targets, int k);
+}
@@ -0,0 +1,158 @@
+package v2;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static v2.PackedItemSets.SLOTS;
+
+/**
+ * For every slot, the states from which the slots after it can still reach one of the targets, each with the
+ * cheapest price of doing so, books included.
+ * <p>
+ * It is built backwards from the targets: the states before a slot are the states after it minus one of that
+ * slot's deltas, wherever that leaves no engraving below zero. A search can then drop a partial build as soon as
+ * its state is missing, whatever the prices are, and bound the ones left by what they still have to pay rather
+ * than by the cheapest listings of any state. Mirrored slots are not told apart here, which only ever makes a
+ * state look easier to complete than it is.
+ */
+final class SuffixTable {
+
+    static final long UNREACHABLE = -1;
+    private static final long EMPTY = -1;
+
+    // open addressing per slot: keys[slot][i] is a state or EMPTY, costs[slot][i] its cheapest completion
+    private final long[][] keys = new long[SLOTS + 1][];
+    private final long[][] costs = new long[SLOTS + 1][];
+    private final int[] sizes = new int[SLOTS + 1];
+    private final long[] minCosts = new long[SLOTS + 1];
+
+    private SuffixTable() {
+    }
+
+    static SuffixTable of(PackedItemSets packed, long[] targets, BookTable books) {
+        SuffixTable table = new SuffixTable();
+        table.allocate(SLOTS, targets.length);
+        for (int t = 0; t < targets.length; t++) {
+            table.putMin(SLOTS, targets[t], books.cost(t));
+        }
+        for (int slot = SLOTS - 1; slot >= 0; slot--) {
+            long[][] listings = cheapestPerDelta(packed.deltas[slot], packed.prices[slot]);
+            long[] deltas = listings[0];
+            long[] prices = listings[1];
+            table.allocate(slot, table.sizes[slot + 1] * Math.min(deltas.length, 4));
+            long[] after = table.keys[slot + 1];
+            for (int i = 0; i < after.length; i++) {
+                if (after[i] == EMPTY) {
+                    continue;
+                }
+                for (int d = 0; d < deltas.length; d++) {
+                    long before = MeetInTheMiddleSearch.remainder(after[i], deltas[d]);
+                    if (before >= 0) {
+                        table.putMin(slot, before, table.costs[slot + 1][i] + prices[d]);
+                    }
+                }
+            }
+        }
+        for (int slot = 0; slot <= SLOTS; slot++) {
+            long[] slotKeys = table.keys[slot];
+            long[] slotCosts = table.costs[slot];
+            table.minCosts[slot] = IntStream.range(0, slotKeys.length).filter(i -> slotKeys[i] != EMPTY).mapToLong(i -> slotCosts[i]).min().orElse(0);
+        }
+        return table;
+    }
+
+    /**
+     * Cheapest price of slots {@code slot}.. plus books that takes {@code state} to a target, or
+     * {@link #UNREACHABLE}. At {@code slot == SLOTS} that is the books of the target {@code state} is.
+     */
+    long cost(int slot, long state) {
+        long[] slotKeys = keys[slot];
+        int mask = slotKeys.length - 1;
+        for (int i = hash(state, mask); ; i = (i + 1) & mask) {
+            if (slotKeys[i] == state) {
+                return costs[slot][i];
+            }
+            if (slotKeys[i] == EMPTY) {
+                return UNREACHABLE;
+            }
+        }
+    }
+
+    boolean isReachable(int slot, long state) {
+        return cost(slot, state) != UNREACHABLE;
+    }
+
+    /**
+     * Cheapest {@link #cost} of any state, 0 if there is none.
+     */
+    long minCost(int slot) {
+        return minCosts[slot];
+    }
+
+    int size(int slot) {
+        return sizes[slot];
+    }
+
+    private void allocate(int slot, int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+        keys[slot] = new long[capacity];
+        costs[slot] = new long[capacity];
+        Arrays.fill(keys[slot], EMPTY);
+        sizes[slot] = 0;
+    }
+
+    private void putMin(int slot, long state, long cost) {
+        long[] slotKeys = keys[slot];
+        int mask = slotKeys.length - 1;
+        for (int i = hash(state, mask); ; i = (i + 1) & mask) {
+            if (slotKeys[i] == state) {
+                costs[slot][i] = Math.min(costs[slot][i], cost);
+                return;
+            }
+            if (slotKeys[i] == EMPTY) {
+                slotKeys[i] = state;
+                costs[slot][i] = cost;
+                // keep the table at most half full
+                if (++sizes[slot] * 2 > slotKeys.length) {
+                    grow(slot);
+                }
+                return;
+            }
+        }
+    }
+
+    private void grow(int slot) {
+        long[] oldKeys = keys[slot];
+        long[] oldCosts = costs[slot];
+        allocate(slot, oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                putMin(slot, oldKeys[i], oldCosts[i]);
+            }
+        }
+    }
+
+    // listings with the same delta only differ in price, so only the cheapest of them matters
+    private static long[][] cheapestPerDelta(long[] deltas, long[] prices) {
+        long[] distinct = new long[deltas.length];
+        long[] cheapest = new long[deltas.length];
+        int count = 0;
+        for (int i = 0; i < deltas.length; i++) {
+            int d = 0;
+            while (d < count && distinct[d] != deltas[i]) {
+                d++;
+            }
+            if (d == count) {
+                distinct[count] = deltas[i];
+                cheapest[count++] = prices[i];
+            } else {
+                cheapest[d] = Math.min(cheapest[d], prices[i]);
+            }
+        }
+        return new long[][]{Arrays.copyOf(distinct, count), Arrays.copyOf(cheapest, count)};
+    }
+
+    private static int hash(long state, int mask) {
+        return (int) ((state * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,222 @@
+package v2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code k} cheapest builds seen so far, as slot positions into a {@link PackedItemSets} plus their price.
+ * <p>
+ * Entries live in a fixed-capacity max-heap over two primitive arrays, so the worst kept build is always at the
+ * root: {@link #worstPrice()} is the bound a search prunes against and an improvement costs {@code O(log k)}.
+ * <p>
+ * Builds of equal price are ranked by their slot positions, which is the order a depth-first search over the
+ * slots finds them in, so several collectors filled from disjoint parts of the search and {@link #merge merged}
+ * keep exactly the builds a single one would.
+ */
+final class TopBuilds {
+
+    interface BuildConsumer {
+        void accept(long price, int[] build);
+    }
+
+    private final int k;
+    private final int width;
+    private final long[] prices;
+    // build of entry i is builds[i * width .. (i + 1) * width)
+    private final int[] builds;
+    // build(rank) hands this out instead of allocating
+    private final int[] scratch;
+    private int size;
+    private boolean sorted;
+
+    TopBuilds(int k, int width) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Keeps at least 1 build, got k=" + k);
+        }
+        this.k = k;
+        this.width = width;
+        this.prices = new long[k];
+        this.builds = new int[k * width];
+        this.scratch = new int[width];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int width() {
+        return width;
+    }
+
+    boolean isFull() {
+        return size == k;
+    }
+
+    /**
+     * Price a build has to stay below to be kept, {@link Long#MAX_VALUE} while there is still room.
+     */
+    long worstPrice() {
+        if (!isFull()) {
+            return Long.MAX_VALUE;
+        }
+        return sorted ? prices[size - 1] : prices[0];
+    }
+
+    /**
+     * Whether a build at {@link #worstPrice()} whose first {@code length} positions are {@code prefix} could still
+     * rank ahead of the worst one.
+     */
+    boolean mayTieAhead(int[] prefix, int length) {
+        if (!isFull()) {
+            return true;
+        }
+        int worst = (sorted ? size - 1 : 0) * width;
+        for (int slot = 0; slot < length; slot++) {
+            if (prefix[slot] != builds[worst + slot]) {
+                return prefix[slot] < builds[worst + slot];
+            }
+        }
+        return true;
+    }
+
+    boolean offer(long price, int[] build) {
+        if (sorted) {
+            throw new IllegalStateException("Builds are already sorted");
+        }
+        if (size < k) {
+            prices[size] = price;
+            System.arraycopy(build, 0, builds, size * width, width);
+            siftUp(size++);
+            return true;
+        }
+        if (compare(price, build, 0) >= 0) {
+            return false;
+        }
+        prices[0] = price;
+        System.arraycopy(build, 0, builds, 0, width);
+        siftDown(0, size);
+        return true;
+    }
+
+    void merge(TopBuilds other) {
+        merge(other, 0);
+    }
+
+    /**
+     * Offers every build of {@code other} with {@code extra} added to its price.
+     */
+    void merge(TopBuilds other, long extra) {
+        for (int i = 0; i < other.size; i++) {
+            System.arraycopy(other.builds, i * other.width, other.scratch, 0, width);
+            offer(other.prices[i] + extra, other.scratch);
+        }
+    }
+
+    /**
+     * Heap-sorts the entries into ascending order in place, after which {@link #price(int)} and {@link #build(int)}
+     * are by rank and no more builds can be offered.
+     */
+    void sort() {
+        if (sorted) {
+            return;
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        sorted = true;
+    }
+
+    long price(int rank) {
+        sort();
+        return prices[rank];
+    }
+
+    int[] build(int rank) {
+        sort();
+        System.arraycopy(builds, rank * width, scratch, 0, width);
+        return scratch;
+    }
+
+    /**
+     * Hands every kept build to {@code consumer}, cheapest first. The array is reused between calls.
+     */
+    void forEachInOrder(BuildConsumer consumer) {
+        sort();
+        for (int rank = 0; rank < size; rank++) {
+            consumer.accept(prices[rank], build(rank));
+        }
+    }
+
+    List<List<Item>> permutations(PackedItemSets packed) {
+        List<List<Item>> permutations = new ArrayList<>(size);
+        forEachInOrder((price, build) -> permutations.add(packed.combination(build)));
+        return permutations;
+    }
+
+    private void siftUp(int child) {
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (compareEntries(child, parent) <= 0) {
+                return;
+            }
+            swap(child, parent);
+            child = parent;
+        }
+    }
+
+    private void siftDown(int parent, int end) {
+        while (true) {
+            int largest = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < end && compareEntries(left, largest) > 0) {
+                largest = left;
+            }
+            if (right < end && compareEntries(right, largest) > 0) {
+                largest = right;
+            }
+            if (largest == parent) {
+                return;
+            }
+            swap(parent, largest);
+            parent = largest;
+        }
+    }
+
+    private int compareEntries(int i, int j) {
+        if (prices[i] != prices[j]) {
+            return prices[i] < prices[j] ? -1 : 1;
+        }
+        return compareBuilds(builds, i * width, j);
+    }
+
+    private int compare(long price, int[] build, int entry) {
+        if (price != prices[entry]) {
+            return price < prices[entry] ? -1 : 1;
+        }
+        return compareBuilds(build, 0, entry);
+    }
+
+    private int compareBuilds(int[] build, int offset, int entry) {
+        for (int slot = 0; slot < width; slot++) {
+            int position = build[offset + slot];
+            int other = builds[entry * width + slot];
+            if (position != other) {
+                return position < other ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    private void swap(int i, int j) {
+        long price = prices[i];
+        prices[i] = prices[j];
+        prices[j] = price;
+        for (int slot = 0; slot < width; slot++) {
+            int position = builds[i * width + slot];
+            builds[i * width + slot] = builds[j * width + slot];
+            builds[j * width + slot] = position;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package v2;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link RingStonePairs#scan} over {@link LongVector#SPECIES_PREFERRED} lanes: one add, one overflow test and one
+ * price test per vector of pairs, and only vectors with a lane left are compared against the targets. Only loaded
+ * once {@link RingStonePairs#isVectorized()} found the incubator module.
+ */
+final class VectorPairScan {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private VectorPairScan() {
+    }
+
+    static int scan(long[] deltas, long[] prices, long state, long bound, int from, long[] targets, int[] matches) {
+        int found = 0;
+        int pair = from;
+        int upper = from + SPECIES.loopBound(deltas.length - from);
+        LongVector base = LongVector.broadcast(SPECIES, state);
+        for (; pair < upper; pair += SPECIES.length()) {
+            LongVector states = LongVector.fromArray(SPECIES, deltas, pair).add(base);
+            VectorMask<Long> candidates = states.and(PackedEngravings.OVERFLOW_MASK).compare(VectorOperators.EQ, 0)
+                    .and(LongVector.fromArray(SPECIES, prices, pair).compare(VectorOperators.LE, bound));
+            if (!candidates.anyTrue()) {
+                continue;
+            }
+            VectorMask<Long> hits = states.compare(VectorOperators.EQ, targets[0]);
+            for (int t = 1; t < targets.length; t++) {
+                hits = hits.or(states.compare(VectorOperators.EQ, targets[t]));
+            }
+            for (long lanes = hits.and(candidates).toLong(); lanes != 0; lanes &= lanes - 1) {
+                matches[found++] = pair + Long.numberOfTrailingZeros(lanes);
+            }
+        }
+        return RingStonePairs.scan(deltas, prices, state, bound, pair, targets, matches, found);
+    }
+}
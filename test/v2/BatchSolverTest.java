@@ -0,0 +1,71 @@
+package v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class BatchSolverTest {
+
+    private static final int K = 5;
+
+    @Test
+    void pricesTheBooksOfEveryProfile() {
+        PriceSnapshot snapshot = snapshot(new Random(7));
+        List<SolveProfile> profiles = List.of(
+                new SolveProfile(EngravingType.DESPERATE_SALVATION, 12, 12, null),
+                new SolveProfile(EngravingType.DESPERATE_SALVATION, 12, 9, null));
+        List<List<Item>> itemSets = Calculator.getItemSets(profiles.get(0));
+        Calculator.getPrices(itemSets, snapshot);
+
+        List<List<List<Item>>> batch = BatchSolver.solve(itemSets, snapshot, profiles, K);
+        for (int p = 0; p < profiles.size(); p++) {
+            SolveProfile profile = profiles.get(p);
+            List<List<Item>> profileItemSets = Calculator.getItemSets(profile);
+            Calculator.getPrices(profileItemSets, snapshot);
+            List<List<Item>> expected = BranchAndBoundSearch.search(profileItemSets, profile.targets(), K);
+            Calculator.addBooks(expected, profileItemSets, profile.targets());
+            List<List<Item>> actual = batch.get(p);
+            Calculator.addBooks(actual, profileItemSets, profile.targets());
+
+            assertFalse(actual.isEmpty(), profile.toString());
+            assertEquals(prices(expected), prices(actual), profile.toString());
+            for (List<Item> build : actual) {
+                assertEquals(profile.getBook2Points(), build.get(ItemType.BOOKS_2.ordinal()).engraving1.points, profile.toString());
+            }
+        }
+    }
+
+    private static List<Long> prices(List<List<Item>> builds) {
+        List<Long> prices = new ArrayList<>();
+        for (List<Item> build : builds) {
+            prices.add(build.stream().mapToLong(item -> item.price).sum());
+        }
+        return prices;
+    }
+
+    // up to two listings of every accessory, and 12 and 9 point books
+    static PriceSnapshot snapshot(Random random) {
+        StringBuilder rows = new StringBuilder();
+        List<List<Item>> templates = Calculator.getItemSets(new SolveProfile(EngravingType.DESPERATE_SALVATION, 12, 12, null));
+        for (int slot = 0; slot < ItemType.STONE.ordinal(); slot++) {
+            for (Item item : templates.get(slot)) {
+                for (int listing = random.nextInt(3); listing > 0; listing--) {
+                    rows.append(new Item(item.itemType, item.engraving1, item.engraving2, 500L * (1 + random.nextInt(200)))).append('\n');
+                }
+            }
+        }
+        for (EngravingType engraving : EngravingType.values()) {
+            rows.append(new Item(ItemType.BOOKS_1, new Engraving(engraving, 12), null, 1000L * (10 + random.nextInt(400)))).append('\n');
+            rows.append(new Item(ItemType.BOOKS_2, new Engraving(engraving, 12), null, 1000L * (10 + random.nextInt(400)))).append('\n');
+            rows.append(new Item(ItemType.BOOKS_2, new Engraving(engraving, 9), null, 1000L * (10 + random.nextInt(400)))).append('\n');
+        }
+        return PriceSnapshot.parse(ByteBuffer.wrap(rows.toString().getBytes(StandardCharsets.US_ASCII)), "test");
+    }
+}
@@ -0,0 +1,58 @@
+package v2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalculatorTest {
+
+    private static final SolveProfile PROFILE = new SolveProfile(EngravingType.DESPERATE_SALVATION, 12, 12, null);
+    private static final PriceSnapshot SNAPSHOT = PriceSnapshot.parse(ByteBuffer.wrap((
+            "EARRING_1,AWAKENING 5,EXPERT 3,100\n"
+                    + "EARRING_1,AWAKENING 5,EXPERT 3,200\n"
+                    + "EARRING_2,AWAKENING 5,EXPERT 3,300\n"
+                    + "RING_1,HEAVY_ARMOR 5,EXPERT 3,400\n").getBytes(StandardCharsets.US_ASCII)), "test");
+
+    @AfterEach
+    void reset() {
+        Calculator.INTERCHANGEABLE_PAIRS = false;
+    }
+
+    @Test
+    void pricesEachSlotFromItsOwnRows() {
+        List<List<Item>> itemSets = Calculator.getItemSets(PROFILE);
+        Calculator.getPrices(itemSets, SNAPSHOT);
+
+        assertEquals(List.of(300L), prices(itemSets.get(ItemType.EARRING_2.ordinal()), EngravingType.AWAKENING));
+        assertFalse(new PackedItemSets(itemSets).mirrors[ItemType.EARRING_2.ordinal()]);
+    }
+
+    @Test
+    void pricesInterchangeablePairsFromTheFirstSlotsRows() {
+        Calculator.INTERCHANGEABLE_PAIRS = true;
+        List<List<Item>> itemSets = Calculator.getItemSets(PROFILE);
+        Calculator.getPrices(itemSets, SNAPSHOT);
+
+        assertEquals(List.of(100L, 200L), prices(itemSets.get(ItemType.EARRING_2.ordinal()), EngravingType.AWAKENING));
+        assertEquals(List.of(400L), prices(itemSets.get(ItemType.RING_2.ordinal()), EngravingType.HEAVY_ARMOR));
+        assertEquals(ItemType.EARRING_2, itemSets.get(ItemType.EARRING_2.ordinal()).get(0).itemType);
+        PackedItemSets packed = new PackedItemSets(itemSets);
+        assertTrue(packed.mirrors[ItemType.EARRING_2.ordinal()]);
+        assertTrue(packed.mirrors[ItemType.RING_2.ordinal()]);
+    }
+
+    private static List<Long> prices(List<Item> items, EngravingType engraving1) {
+        return items.stream()
+                .filter(item -> item.engraving1.engravingType == engraving1 && item.engraving1.points == 5 && item.price != Calculator.UNAVAILABLE)
+                .map(item -> item.price)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,97 @@
+package v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GenericSolverTest {
+
+    private static final int SLOTS = 4;
+    private static final int LISTINGS = 6;
+    private static final int ENGRAVINGS = 5;
+    private static final int[] LEVELS = {9, 6, 3};
+    private static final int K = 10;
+
+    @Test
+    void findsTheCheapestBuildsEnumerationFinds() {
+        for (int seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            long[][] deltas = new long[SLOTS][LISTINGS];
+            long[][] prices = new long[SLOTS][LISTINGS];
+            for (int slot = 0; slot < SLOTS; slot++) {
+                for (int i = 0; i < LISTINGS; i++) {
+                    int engraving1 = random.nextInt(ENGRAVINGS);
+                    int engraving2 = (engraving1 + 1 + random.nextInt(ENGRAVINGS - 1)) % ENGRAVINGS;
+                    deltas[slot][i] = GenericSolver.delta(engraving1, 1 + random.nextInt(5), engraving2, 1 + random.nextInt(3));
+                    // ascending, with ties
+                    prices[slot][i] = i == 0 ? random.nextInt(5) : prices[slot][i - 1] + random.nextInt(3);
+                }
+            }
+            for (int maxOtherPoints = 0; maxOtherPoints <= 2; maxOtherPoints++) {
+                TopBuilds top = new GenericSolver(ENGRAVINGS, LEVELS, maxOtherPoints).solve(deltas, prices, new boolean[SLOTS], K);
+                List<long[]> expected = enumerate(deltas, prices, maxOtherPoints);
+                String at = "seed " + seed + ", up to " + maxOtherPoints + " other points";
+                assertEquals(Math.min(K, expected.size()), top.size(), at);
+                for (int rank = 0; rank < top.size(); rank++) {
+                    assertEquals(expected.get(rank)[0], top.price(rank), at);
+                    assertArrayEquals(Arrays.stream(expected.get(rank), 1, SLOTS + 1).mapToInt(i -> (int) i).toArray(), top.build(rank), at);
+                }
+            }
+        }
+    }
+
+    @Test
+    void keepsOtherEngravingsBelowEveryLevel() {
+        assertThrows(IllegalArgumentException.class, () -> new GenericSolver(ENGRAVINGS, LEVELS, 3));
+        assertThrows(IllegalArgumentException.class, () -> new GenericSolver(ENGRAVINGS, LEVELS, -1));
+    }
+
+    // every build meeting the levels with the rest within the cap, as {price, positions...}, cheapest first
+    private static List<long[]> enumerate(long[][] deltas, long[][] prices, int maxOtherPoints) {
+        List<long[]> builds = new ArrayList<>();
+        int[] build = new int[SLOTS];
+        for (int n = 0; n < Math.pow(LISTINGS, SLOTS); n++) {
+            long price = 0;
+            int[] points = new int[ENGRAVINGS];
+            for (int slot = 0, rest = n; slot < SLOTS; slot++, rest /= LISTINGS) {
+                build[slot] = rest % LISTINGS;
+                price += prices[slot][build[slot]];
+                for (int e = 0; e < ENGRAVINGS; e++) {
+                    points[e] += PackedEngravings.points(deltas[slot][build[slot]], e);
+                }
+            }
+            if (isValid(points, maxOtherPoints)) {
+                long[] entry = new long[SLOTS + 1];
+                entry[0] = price;
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    entry[slot + 1] = build[slot];
+                }
+                builds.add(entry);
+            }
+        }
+        builds.sort((a, b) -> {
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] != b[i]) {
+                    return Long.compare(a[i], b[i]);
+                }
+            }
+            return 0;
+        });
+        return builds;
+    }
+
+    private static boolean isValid(int[] points, int maxOtherPoints) {
+        int[] placed = Arrays.stream(points).filter(p -> p > maxOtherPoints).sorted().toArray();
+        int[] levels = LEVELS.clone();
+        Arrays.sort(levels);
+        return Arrays.equals(placed, levels);
+    }
+}
@@ -0,0 +1,62 @@
+package v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ListingFilterTest {
+
+    private static final long[] TARGETS = PackedEngravings.targets(12, 12);
+
+    @Test
+    void keepsTwoListingsWithTheSameEngravingsForAMirroredPair() {
+        List<List<Item>> itemSets = bothEarringsAlike();
+        for (SearchMode mode : new SearchMode[]{SearchMode.BRANCH_AND_BOUND, SearchMode.PACKED, SearchMode.PARALLEL,
+                SearchMode.MEET_IN_THE_MIDDLE, SearchMode.DYNAMIC_PROGRAMMING, SearchMode.GENERIC}) {
+            assertEquals(1, mode.solver.solve(itemSets, TARGETS, 1).size(), mode + " unfiltered");
+            assertEquals(1, mode.solver.solve(ListingFilter.reduce(itemSets, 1), TARGETS, 1).size(), mode + " filtered");
+        }
+    }
+
+    @Test
+    void keepsKListingsPerEngravingsElsewhere() {
+        List<List<Item>> reduced = ListingFilter.reduce(bothEarringsAlike(), 1);
+        assertEquals(2, reduced.get(ItemType.EARRING_1.ordinal()).size());
+        assertEquals(2, reduced.get(ItemType.EARRING_2.ordinal()).size());
+        assertEquals(1, reduced.get(ItemType.NECKLACE.ordinal()).size());
+    }
+
+    // the only valid build takes both earring listings, which have the same engravings
+    private static List<List<Item>> bothEarringsAlike() {
+        List<List<Item>> itemSets = new ArrayList<>();
+        itemSets.add(List.of(
+                item(ItemType.NECKLACE, EngravingType.AWAKENING, 5, EngravingType.HEAVY_ARMOR, 3, 100),
+                item(ItemType.NECKLACE, EngravingType.AWAKENING, 5, EngravingType.HEAVY_ARMOR, 3, 200)));
+        for (ItemType earring : new ItemType[]{ItemType.EARRING_1, ItemType.EARRING_2}) {
+            itemSets.add(List.of(
+                    item(earring, EngravingType.AWAKENING, 5, EngravingType.EXPERT, 3, 100),
+                    item(earring, EngravingType.AWAKENING, 5, EngravingType.EXPERT, 3, 200)));
+        }
+        for (ItemType ring : new ItemType[]{ItemType.RING_1, ItemType.RING_2}) {
+            itemSets.add(List.of(
+                    item(ring, EngravingType.HEAVY_ARMOR, 5, EngravingType.DESPERATE_SALVATION, 3, 100),
+                    item(ring, EngravingType.EXPERT, 4, EngravingType.VITAL_POINT_HIT, 3, 200)));
+        }
+        itemSets.add(List.of(item(ItemType.STONE, EngravingType.HEAVY_ARMOR, 7, EngravingType.EXPERT, 5, 0)));
+        for (ItemType books : new ItemType[]{ItemType.BOOKS_1, ItemType.BOOKS_2}) {
+            List<Item> list = new ArrayList<>();
+            for (EngravingType engraving : EngravingType.values()) {
+                list.add(new Item(books, new Engraving(engraving, 12), null, 1000));
+            }
+            itemSets.add(list);
+        }
+        return itemSets;
+    }
+
+    private static Item item(ItemType itemType, EngravingType engraving1, int points1, EngravingType engraving2, int points2, long price) {
+        return new Item(itemType, new Engraving(engraving1, points1), new Engraving(engraving2, points2), price);
+    }
+}
@@ -0,0 +1,149 @@
+package v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ParetoFrontTest {
+
+    private static final int LISTINGS = 6;
+    private static final int[][] POINTS = {{5, 3}, {4, 3}, {3, 3}, {3, 4}, {3, 5}};
+    private static final EngravingType[] TYPES = EngravingType.values();
+
+    @Test
+    void findsTheFrontEnumerationFinds() {
+        for (int seed = 0; seed < 12; seed++) {
+            // every other snapshot has mirrored earrings and rings
+            List<List<Item>> itemSets = itemSets(new Random(seed), seed % 2 == 1);
+            List<ParetoFront.Point> front = ParetoFront.of(itemSets);
+            List<String> expected = enumerate(itemSets);
+
+            assertFalse(expected.isEmpty(), "seed " + seed);
+            assertEquals(expected, describe(front), "seed " + seed);
+            for (ParetoFront.Point point : front) {
+                assertEquals(point.getPrice(), point.getBuild().stream().mapToLong(item -> item.price).sum(), "seed " + seed);
+                assertEquals(point.getThrees() << 16 | point.getTwos() << 8 | point.getOnes(), outcome(point.getBuild()), "seed " + seed);
+            }
+        }
+    }
+
+    // price and outcome of every point, by price and then outcome since points of the same price come in any order
+    private static List<String> describe(List<ParetoFront.Point> front) {
+        return front.stream()
+                .map(point -> key(point.getPrice(), point.getThrees() << 16 | point.getTwos() << 8 | point.getOnes()))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static String key(long price, int outcome) {
+        return String.format("%012d %06x", price, outcome);
+    }
+
+    // the cheapest build of every outcome, and then the outcomes no other one covers for no more
+    private static List<String> enumerate(List<List<Item>> itemSets) {
+        boolean[] mirrors = new PackedItemSets(itemSets).mirrors;
+        Map<Integer, Long> cheapest = new HashMap<>();
+        List<Item> build = new ArrayList<>();
+        enumerate(itemSets, mirrors, 0, -1, build, cheapest);
+        List<String> front = new ArrayList<>();
+        cheapest.forEach((outcome, price) -> {
+            boolean dominated = cheapest.entrySet().stream().anyMatch(other -> !other.getKey().equals(outcome)
+                    && covers(other.getKey(), outcome) && other.getValue() <= price);
+            if (!dominated) {
+                front.add(key(price, outcome));
+            }
+        });
+        front.sort(null);
+        return front;
+    }
+
+    private static void enumerate(List<List<Item>> itemSets, boolean[] mirrors, int slot, int previous, List<Item> build,
+                                  Map<Integer, Long> cheapest) {
+        if (slot == ItemType.BOOKS_1.ordinal()) {
+            for (Item book1 : firstPerEngraving(itemSets.get(slot))) {
+                for (Item book2 : firstPerEngraving(itemSets.get(slot + 1))) {
+                    if (book1.engraving1.engravingType != book2.engraving1.engravingType) {
+                        build.add(book1);
+                        build.add(book2);
+                        long price = build.stream().mapToLong(item -> item.price).sum();
+                        cheapest.merge(outcome(build), price, Math::min);
+                        build.remove(build.size() - 1);
+                        build.remove(build.size() - 1);
+                    }
+                }
+            }
+            return;
+        }
+        List<Item> listings = itemSets.get(slot);
+        // a mirrored pair takes two different listings once, in either order
+        for (int i = slot < PackedItemSets.SLOTS && mirrors[slot] ? previous + 1 : 0; i < listings.size(); i++) {
+            if (listings.get(i).price >= Calculator.UNAVAILABLE) {
+                continue;
+            }
+            build.add(listings.get(i));
+            enumerate(itemSets, mirrors, slot + 1, i, build, cheapest);
+            build.remove(build.size() - 1);
+        }
+    }
+
+    private static List<Item> firstPerEngraving(List<Item> books) {
+        Map<EngravingType, Item> first = new HashMap<>();
+        books.forEach(book -> first.putIfAbsent(book.engraving1.engravingType, book));
+        return new ArrayList<>(first.values());
+    }
+
+    // threes << 16 | twos << 8 | ones, with points past 15 wasted
+    private static int outcome(List<Item> build) {
+        int[] reached = new int[4];
+        Calculator.mapEngravings(build).values().forEach(points -> {
+            for (int level = 1; level <= Math.min(points, PackedEngravings.MAX_POINTS) / 5; level++) {
+                reached[level]++;
+            }
+        });
+        return reached[3] << 16 | reached[2] << 8 | reached[1];
+    }
+
+    private static boolean covers(int outcome, int other) {
+        return (outcome >>> 16) >= (other >>> 16) && (outcome >>> 8 & 0xFF) >= (other >>> 8 & 0xFF) && (outcome & 0xFF) >= (other & 0xFF);
+    }
+
+    private static List<List<Item>> itemSets(Random random, boolean mirrored) {
+        List<List<Item>> itemSets = new ArrayList<>();
+        for (ItemType itemType : new ItemType[]{ItemType.NECKLACE, ItemType.EARRING_1, ItemType.EARRING_2, ItemType.RING_1, ItemType.RING_2}) {
+            boolean mirror = mirrored && (itemType == ItemType.EARRING_2 || itemType == ItemType.RING_2);
+            List<Item> listings = new ArrayList<>();
+            for (int i = 0; i < LISTINGS; i++) {
+                Item listing = mirror ? itemSets.get(itemSets.size() - 1).get(i) : listing(random, itemType);
+                listings.add(new Item(itemType, listing.engraving1, listing.engraving2, listing.price));
+            }
+            itemSets.add(listings);
+        }
+        itemSets.add(List.of(
+                new Item(ItemType.STONE, new Engraving(TYPES[0], 7), new Engraving(TYPES[1], 5), 0),
+                new Item(ItemType.STONE, new Engraving(TYPES[2], 6), new Engraving(TYPES[3], 6), 500L * random.nextInt(20))));
+        for (ItemType books : new ItemType[]{ItemType.BOOKS_1, ItemType.BOOKS_2}) {
+            List<Item> list = new ArrayList<>();
+            for (EngravingType type : TYPES) {
+                list.add(new Item(books, new Engraving(type, 12), null, 1000L * (10 + random.nextInt(100))));
+            }
+            itemSets.add(list);
+        }
+        return itemSets;
+    }
+
+    private static Item listing(Random random, ItemType itemType) {
+        int first = random.nextInt(TYPES.length);
+        int second = (first + 1 + random.nextInt(TYPES.length - 1)) % TYPES.length;
+        int[] points = POINTS[random.nextInt(POINTS.length)];
+        long price = random.nextInt(8) == 0 ? Calculator.UNAVAILABLE : 500L * (1 + random.nextInt(200));
+        return new Item(itemType, new Engraving(TYPES[first], points[0]), new Engraving(TYPES[second], points[1]), price);
+    }
+}
@@ -0,0 +1,92 @@
+package v2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static v2.PackedItemSets.SLOTS;
+
+class PriceSensitivityTest {
+
+    private static final SolveProfile PROFILE = new SolveProfile(EngravingType.DESPERATE_SALVATION, 12, 12, null);
+    private static final int K = 5;
+
+    @AfterEach
+    void reset() {
+        Calculator.INTERCHANGEABLE_PAIRS = false;
+    }
+
+    @Test
+    void matchesASearchForcedToTakeEachListing() {
+        check(itemSets(new Random(13)));
+    }
+
+    @Test
+    void matchesASearchForcedToTakeEachListingOfMirroredPairs() {
+        Calculator.INTERCHANGEABLE_PAIRS = true;
+        List<List<Item>> itemSets = itemSets(new Random(17));
+        assertTrue(new PackedItemSets(itemSets).mirrors[ItemType.EARRING_2.ordinal()]);
+        check(itemSets);
+    }
+
+    private static void check(List<List<Item>> itemSets) {
+        long[] targets = PROFILE.targets();
+        List<PriceSensitivity.Entry> report = PriceSensitivity.report(itemSets, targets, K);
+        assertFalse(report.isEmpty());
+        Map<Item, PriceSensitivity.Entry> entries = new HashMap<>();
+        report.forEach(entry -> entries.put(entry.getListing(), entry));
+
+        PackedItemSets sorted = PackedItemSets.sortedByPrice(itemSets);
+        BranchAndBoundSearch search = new BranchAndBoundSearch(sorted, targets, K, new AtomicLong(Long.MAX_VALUE));
+        search.visitWith(-1, 0, null);
+        long reference = search.top().worstPrice();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            for (int position = 0; position < sorted.deltas[slot].length; position++) {
+                // a listing of a mirrored pair can be the first of the two as well
+                long best = forced(sorted, targets, slot, position);
+                if (sorted.mirrors[slot]) {
+                    best = Math.min(best, forced(sorted, targets, slot - 1, position));
+                }
+                if (slot + 1 < SLOTS && sorted.mirrors[slot + 1]) {
+                    best = Math.min(best, forced(sorted, targets, slot + 1, position));
+                }
+                Item listing = itemSets.get(slot).get(sorted.itemIndices[slot][position]);
+                PriceSensitivity.Entry entry = entries.get(listing);
+                if (best == Long.MAX_VALUE) {
+                    assertNull(entry, listing.toString());
+                    continue;
+                }
+                assertEquals(best, entry.getBestBuild(), listing.toString());
+                assertEquals(reference - (best - listing.price), entry.getBreakEven(), listing.toString());
+            }
+        }
+    }
+
+    private static long forced(PackedItemSets sorted, long[] targets, int slot, int position) {
+        BranchAndBoundSearch search = new BranchAndBoundSearch(sorted, targets, 1, new AtomicLong(Long.MAX_VALUE));
+        search.visitWith(slot, position, null);
+        return search.top().size() == 0 ? Long.MAX_VALUE : search.top().price(0);
+    }
+
+    // about half of the listed accessories, the same ones in a mirrored pair, to keep a search per listing quick
+    private static List<List<Item>> itemSets(Random random) {
+        List<List<Item>> itemSets = Calculator.getItemSets(PROFILE);
+        Calculator.getPrices(itemSets, BatchSolverTest.snapshot(random));
+        for (int slot = 0; slot < ItemType.STONE.ordinal(); slot++) {
+            itemSets.set(slot, itemSets.get(slot).stream()
+                    .filter(item -> item.price != Calculator.UNAVAILABLE && item.price / 500 % 2 == 0)
+                    .collect(Collectors.toList()));
+        }
+        return itemSets;
+    }
+}
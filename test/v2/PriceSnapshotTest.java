@@ -0,0 +1,42 @@
+package v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PriceSnapshotTest {
+
+    private static final Item NECKLACE = new Item(ItemType.NECKLACE, new Engraving(EngravingType.AWAKENING, 5), new Engraving(EngravingType.HEAVY_ARMOR, 3), 0);
+
+    @Test
+    void readsEveryListingCheapestFirst() {
+        PriceSnapshot snapshot = parse("NECKLACE,AWAKENING 5,HEAVY_ARMOR 3,300\r\n"
+                + "NECKLACE,AWAKENING 5,HEAVY_ARMOR 3,100\n"
+                + "\n"
+                + "BOOKS_1,AWAKENING 12,null,2000\n");
+
+        assertArrayEquals(new long[]{100, 300}, snapshot.prices(NECKLACE));
+        assertArrayEquals(new long[]{2000}, snapshot.prices(new Item(ItemType.BOOKS_1, new Engraving(EngravingType.AWAKENING, 12), null, 0)));
+    }
+
+    @Test
+    void rejectsAnEmptyPrice() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> parse("NECKLACE,AWAKENING 5,HEAVY_ARMOR 3,100\nNECKLACE,AWAKENING 5,HEAVY_ARMOR 3,\n"));
+        assertEquals("Invalid price on line 2", e.getMessage());
+    }
+
+    @Test
+    void rejectsAPriceThatIsNotANumber() {
+        assertThrows(IllegalArgumentException.class, () -> parse("NECKLACE,AWAKENING 5,HEAVY_ARMOR 3,1O0\n"));
+    }
+
+    private static PriceSnapshot parse(String rows) {
+        return PriceSnapshot.parse(ByteBuffer.wrap(rows.getBytes(StandardCharsets.US_ASCII)), "test");
+    }
+}
@@ -0,0 +1,55 @@
+package v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static v2.PackedItemSets.SLOTS;
+
+class ResultCacheTest {
+
+    @Test
+    void skipsPartialBuilds() {
+        List<List<Item>> itemSets = itemSets();
+        List<Item> build = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            build.add(itemSets.get(slot).get(1));
+        }
+        List<List<Item>> permutations = List.of(List.of(), build.subList(0, 3), build);
+
+        ByteBuffer data = ByteBuffer.wrap(ResultCache.encode(permutations, itemSets));
+        assertEquals(1, data.getInt());
+        assertEquals(SLOTS * 200L, data.getLong());
+        for (int slot = 0; slot < SLOTS; slot++) {
+            assertEquals(1, data.getInt());
+        }
+        assertEquals(0, data.remaining());
+    }
+
+    @Test
+    void rejectsAnItemThatIsNotListed() {
+        List<List<Item>> itemSets = itemSets();
+        List<Item> build = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            build.add(itemSets.get(slot).get(0));
+        }
+        build.set(2, new Item(ItemType.values()[2], new Engraving(EngravingType.AWAKENING, 3), null, 300));
+
+        assertThrows(IllegalStateException.class, () -> ResultCache.encode(List.of(build), itemSets));
+    }
+
+    private static List<List<Item>> itemSets() {
+        List<List<Item>> itemSets = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            ItemType itemType = ItemType.values()[slot];
+            itemSets.add(List.of(
+                    new Item(itemType, new Engraving(EngravingType.AWAKENING, 3), null, 100),
+                    new Item(itemType, new Engraving(EngravingType.AWAKENING, 3), null, 200)));
+        }
+        return itemSets;
+    }
+}
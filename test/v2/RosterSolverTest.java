@@ -0,0 +1,48 @@
+package v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RosterSolverTest {
+
+    @Test
+    void buysEachCharacterTheBooksOfItsOwnPoints() {
+        PriceSnapshot snapshot = BatchSolverTest.snapshot(new Random(11));
+        List<SolveProfile> profiles = List.of(
+                new SolveProfile(EngravingType.DESPERATE_SALVATION, 12, 12, null),
+                new SolveProfile(EngravingType.AWAKENING, 12, 9, null));
+        List<List<Item>> itemSets = Calculator.getItemSets(profiles.get(0));
+        Calculator.getPrices(itemSets, snapshot);
+
+        RosterSolver.Roster roster = RosterSolver.solve(itemSets, snapshot, profiles);
+
+        assertEquals(profiles.size(), roster.getBuilds().size());
+        long total = 0;
+        long alone = 0;
+        for (int c = 0; c < profiles.size(); c++) {
+            SolveProfile profile = profiles.get(c);
+            List<Item> build = roster.getBuilds().get(c);
+            assertEquals(profile.getBook2Points(), build.get(ItemType.BOOKS_2.ordinal()).engraving1.points, profile.toString());
+            Map<EngravingType, Integer> engravings = Calculator.mapEngravings(build);
+            assertEquals(5, engravings.size(), profile.toString());
+            engravings.values().forEach(points -> assertEquals(15, points, profile.toString()));
+            total += build.stream().mapToLong(item -> item.price).sum();
+
+            List<List<Item>> own = Calculator.getItemSets(profile);
+            Calculator.getPrices(own, snapshot);
+            List<List<Item>> cheapest = BranchAndBoundSearch.search(own, profile.targets(), 1);
+            Calculator.addBooks(cheapest, own, profile.targets());
+            alone += cheapest.get(0).stream().mapToLong(item -> item.price).sum();
+        }
+        assertEquals(total, roster.getPrice());
+        assertTrue(roster.getPrice() < Calculator.UNAVAILABLE);
+        assertTrue(roster.getPrice() >= alone);
+        assertTrue(roster.getLowerBound() <= roster.getPrice());
+    }
+}
@@ -0,0 +1,32 @@
+package v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchStatsTest {
+
+    @Test
+    void everyEngineButLegacyCounts() {
+        SolveProfile profile = new SolveProfile(EngravingType.DESPERATE_SALVATION, 12, 12, null);
+        List<List<Item>> itemSets = Calculator.getItemSets(profile);
+        Calculator.getPrices(itemSets, BatchSolverTest.snapshot(new Random(5)));
+        List<List<Item>> reduced = ListingFilter.reduce(itemSets, 3);
+        for (SearchMode mode : SearchMode.values()) {
+            if (mode == SearchMode.LEGACY) {
+                continue;
+            }
+            SearchStats.STATS.reset();
+            int builds = mode.solver.solve(reduced, profile.targets(), 3).size();
+
+            assertTrue(builds > 0, mode.toString());
+            assertTrue(Arrays.stream(SearchStats.STATS.getNodesPerSlot()).sum() > 0, mode + " nodes");
+            assertTrue(SearchStats.STATS.getLeaves() > 0, mode + " leaves");
+            assertTrue(SearchStats.STATS.getValidBuilds() >= builds, mode + " valid builds");
+        }
+    }
+}
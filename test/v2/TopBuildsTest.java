@@ -0,0 +1,32 @@
+package v2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TopBuildsTest {
+
+    @Test
+    void rejectsKBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new TopBuilds(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new TopBuilds(-1, 2));
+    }
+
+    @Test
+    void keepsTheKCheapest() {
+        TopBuilds top = new TopBuilds(2, 2);
+        top.offer(300, new int[]{0, 0});
+        top.offer(100, new int[]{1, 0});
+        top.offer(200, new int[]{0, 1});
+        top.offer(100, new int[]{0, 2});
+        top.sort();
+
+        assertEquals(2, top.size());
+        assertEquals(100, top.price(0));
+        assertArrayEquals(new int[]{0, 2}, top.build(0));
+        assertEquals(100, top.price(1));
+        assertArrayEquals(new int[]{1, 0}, top.build(1));
+    }
+}
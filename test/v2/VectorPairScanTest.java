@@ -0,0 +1,53 @@
+package v2;
+
+import jdk.incubator.vector.LongVector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorPairScanTest {
+
+    private static final long[] TARGETS = PackedEngravings.targets(12, 12);
+    private static final int LANES = LongVector.SPECIES_PREFERRED.length();
+
+    @Test
+    void runsWithTheVectorApi() {
+        assertTrue(RingStonePairs.isVectorized());
+    }
+
+    @Test
+    void findsThePairsThePlainLoopFinds() {
+        Random random = new Random(3);
+        long state = PackedEngravings.delta(new Engraving(EngravingType.AWAKENING, 5))
+                + PackedEngravings.delta(new Engraving(EngravingType.HEAVY_ARMOR, 3));
+        // lengths with no full vector, an exact number of them and a tail shorter than one
+        for (int length : new int[]{0, 1, LANES - 1, LANES, 3 * LANES, 3 * LANES + 1, 4 * LANES - 1, 257}) {
+            long[] deltas = new long[length];
+            long[] prices = new long[length];
+            for (int pair = 0; pair < length; pair++) {
+                // every third pair lands on a target, the rest anywhere including past 15 points
+                deltas[pair] = random.nextInt(3) == 0 ? TARGETS[random.nextInt(TARGETS.length)] - state : random.nextLong() & ~PackedEngravings.OVERFLOW_MASK;
+                prices[pair] = random.nextInt(1000);
+            }
+            // starts on, just past and just before a vector boundary
+            for (int from : new int[]{0, 1, LANES - 1, LANES, LANES + 1, length / 2, length}) {
+                if (from > length) {
+                    continue;
+                }
+                // prices the lanes of one vector fall on both sides of, none and all of them
+                for (long bound : new long[]{-1, 250, 500, 999}) {
+                    int[] expected = new int[length];
+                    int[] actual = new int[length];
+                    int expectedFound = RingStonePairs.scan(deltas, prices, state, bound, from, TARGETS, expected, 0);
+                    int actualFound = VectorPairScan.scan(deltas, prices, state, bound, from, TARGETS, actual);
+                    String at = "length " + length + ", from " + from + ", bound " + bound;
+                    assertArrayEquals(Arrays.copyOf(expected, expectedFound), Arrays.copyOf(actual, actualFound), at);
+                }
+            }
+        }
+    }
+}